@@ -0,0 +1,181 @@
+package org.writer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * Writer, кодирующий символы в UTF-8 прямо в ByteBuffer.
+ * Точно знает, сколько байт уже записано, что нужно для контрольных точек и предварительной оценки размера.
+ * Наследники решают, куда девать заполненный буфер: писать в канал или переходить к следующему окну отображения.
+ */
+abstract class ByteBufferWriter extends Writer {
+
+    /**
+     * Текущий буфер, в который кодируются символы.
+     */
+    ByteBuffer buffer;
+
+    /**
+     * Абсолютная позиция в файле, соответствующая началу буфера.
+     */
+    long bufferStart;
+
+    /**
+     * Подбор размера буфера и учет выбранных параметров ввода-вывода.
+     */
+    IoTuner tuner;
+
+    /**
+     * Старшая половина суррогатной пары, ожидающая младшую.
+     */
+    private char pendingHighSurrogate;
+
+    /**
+     * Возвращает позицию в файле сразу после последнего записанного символа с учетом буфера.
+     *
+     * @return смещение в байтах
+     */
+    long position() {
+        return bufferStart + buffer.position();
+    }
+
+    /**
+     * Возвращает емкость буфера: сколько байт накапливается до записи в канал или перехода к следующему окну.
+     *
+     * @return емкость буфера в байтах
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Возвращает выбранные для записи параметры ввода-вывода.
+     *
+     * @param rowWidth средний размер записанной строки в байтах, или 0, если строк не было
+     * @return параметры ввода-вывода
+     */
+    IoSettings ioSettings(double rowWidth) {
+        return tuner.settings(capacity(), rowWidth);
+    }
+
+    /**
+     * Освобождает место в буфере: после вызова в нем должно оставаться не меньше четырех свободных байт,
+     * а {@link #bufferStart} должен указывать на позицию начала буфера.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    abstract void drain() throws IOException;
+
+    /**
+     * Дожидается записи всех уже закодированных данных на диск.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    abstract void sync() throws IOException;
+
+    /**
+     * Вычисляет длину строки в байтах UTF-8 без ее кодирования.
+     *
+     * @param value строка
+     * @return длина в байтах
+     */
+    static int utf8Length(CharSequence value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                // Суррогатная пара дает 4 байта на два символа, остальные символы - 3 байта
+                bytes += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            encode(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        // Кодируем посимвольно, не создавая промежуточную строку, как это делает Writer.append
+        for (int i = start; i < end; i++) {
+            encode(csq.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Дописывает '?' вместо оставшейся без пары старшей половины суррогатной пары. Вызывается перед закрытием.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    void finishEncoding() throws IOException {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            encode('?');
+        }
+    }
+
+    /**
+     * Кодирует один символ UTF-16 в UTF-8. Непарные суррогаты заменяются на '?', как это делает OutputStreamWriter.
+     */
+    private void encode(char c) throws IOException {
+        if (buffer.remaining() < 4) {
+            drain();
+        }
+
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                return;
+            }
+            // В буфере остается не меньше трех байт, этого хватает для любого символа ниже
+            buffer.put((byte) '?');
+        }
+
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Буферизованный Writer, кодирующий символы в UTF-8 и пишущий их в FileChannel.
+ * В отличие от связки BufferedWriter + OutputStreamWriter точно знает, сколько байт уже записано,
+ * что нужно для контрольных точек.
+ *
+ * <p>Размер буфера подбирает {@link IoTuner}: после каждого сброса буфер может быть заменен
+ * на больший или меньший в зависимости от наблюдаемой скорости вывода.
+ */
+final class ChannelWriter extends ByteBufferWriter {
+
+    private final FileChannel channel;
+
+    /**
+     * Время предыдущего сброса буфера для измерения скорости вывода.
+     */
+    private long lastDrainNanos;
+
+    /**
+     * Создает Writer, пишущий с текущей позиции канала.
+     *
+     * @param channel канал файла, открытый на запись
+     * @param tuner подбор размера буфера
+     * @throws IOException если не удалось получить позицию канала
+     */
+    ChannelWriter(FileChannel channel, IoTuner tuner) throws IOException {
+        this.channel = channel;
+        this.tuner = tuner;
+        this.buffer = ByteBuffer.allocate(Math.max(tuner.initialBufferSize(), 16));
+        this.bufferStart = channel.position();
+        this.lastDrainNanos = System.nanoTime();
+    }
+
+    @Override
+    void drain() throws IOException {
+        int bytes = buffer.position();
+        writeBuffer();
+
+        long now = System.nanoTime();
+        int size = Math.max(tuner.nextBufferSize(bytes, now - lastDrainNanos, buffer.capacity()), 16);
+        lastDrainNanos = now;
+        if (size != buffer.capacity()) {
+            // Буфер пуст, поэтому его можно заменить без копирования
+            buffer = ByteBuffer.allocate(size);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bufferStart += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    void sync() throws IOException {
+        drain();
+        channel.force(false);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        finishEncoding();
+        // Подбирать буфер при закрытии незачем
+        writeBuffer();
+        channel.close();
+    }
+}
@@ -0,0 +1,134 @@
+package org.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Файл контрольной точки, сопровождающий CSV файл при записи в режиме {@link WriteMode#APPEND}.
+ *
+ * <p>Файл состоит из двух слотов фиксированного размера, которые перезаписываются по очереди.
+ * Каждый слот содержит порядковый номер, число записанных строк, смещение в байтах и контрольную сумму,
+ * поэтому оборванная запись одного слота не портит предыдущую контрольную точку.
+ */
+final class CheckpointFile implements AutoCloseable {
+
+    /**
+     * Суффикс, добавляемый к имени CSV файла.
+     */
+    static final String SUFFIX = ".ckpt";
+
+    private static final int SLOT_SIZE = 4 * Long.BYTES;
+
+    private final FileChannel channel;
+    private final ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+    private final Checkpoint latest;
+    private long sequence;
+    private int nextSlot;
+
+    private CheckpointFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        Checkpoint found = null;
+        for (int i = 0; i < 2; i++) {
+            slot.clear();
+            long position = (long) i * SLOT_SIZE;
+            int read;
+            while (slot.hasRemaining() && (read = channel.read(slot, position)) > 0) {
+                position += read;
+            }
+            if (slot.hasRemaining()) {
+                // Слот еще ни разу не записывался
+                continue;
+            }
+            slot.flip();
+            long slotSequence = slot.getLong();
+            long rows = slot.getLong();
+            long offset = slot.getLong();
+            if (slot.getLong() == checksum(slotSequence, rows, offset) && slotSequence > sequence) {
+                sequence = slotSequence;
+                found = new Checkpoint(rows, offset);
+                nextSlot = i ^ 1;
+            }
+        }
+        this.latest = found;
+    }
+
+    /**
+     * Возвращает путь файла контрольной точки для CSV файла.
+     *
+     * @param csvFile путь CSV файла
+     * @return путь файла контрольной точки
+     */
+    static Path pathFor(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Открывает файл контрольной точки, создавая его при необходимости, и читает последнюю корректную точку.
+     *
+     * @param path путь файла контрольной точки
+     * @return открытый файл контрольной точки
+     * @throws IOException если файл не удалось открыть или прочитать
+     */
+    static CheckpointFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new CheckpointFile(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает последнюю корректную контрольную точку на момент открытия файла.
+     *
+     * @return контрольная точка или null, если ни один слот не прошел проверку
+     */
+    Checkpoint latest() {
+        return latest;
+    }
+
+    /**
+     * Сохраняет контрольную точку и дожидается ее записи на диск.
+     * Вызывающий код должен предварительно синхронизировать сам CSV файл.
+     *
+     * @param rows число строк данных, записанных на диск
+     * @param offset смещение в байтах сразу после последней записанной строки
+     * @throws IOException если произошла ошибка записи
+     */
+    void write(long rows, long offset) throws IOException {
+        sequence++;
+        slot.clear();
+        slot.putLong(sequence).putLong(rows).putLong(offset).putLong(checksum(sequence, rows, offset));
+        slot.flip();
+        long position = (long) nextSlot * SLOT_SIZE;
+        while (slot.hasRemaining()) {
+            position += channel.write(slot, position);
+        }
+        channel.force(false);
+        nextSlot ^= 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static long checksum(long sequence, long rows, long offset) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(3 * Long.BYTES).putLong(sequence).putLong(rows).putLong(offset).flip());
+        return crc.getValue();
+    }
+
+    /**
+     * Контрольная точка: первые rows строк данных полностью записаны в файл до смещения offset.
+     */
+    record Checkpoint(long rows, long offset) {
+    }
+}
@@ -0,0 +1,30 @@
+package org.writer;
+
+/**
+ * Скомпилированный способ получить значение колонки из объекта.
+ */
+@FunctionalInterface
+interface ColumnAccessor {
+
+    /**
+     * Возвращает значение колонки.
+     *
+     * @param target объект строки, не null
+     * @return значение колонки или null
+     */
+    Object get(Object target);
+
+    /**
+     * Строит цепочку: сначала извлекает вложенный объект, затем значение из него.
+     * Если вложенный объект равен null, цепочка сразу возвращает null.
+     *
+     * @param next способ получить значение из вложенного объекта
+     * @return составной способ получения значения
+     */
+    default ColumnAccessor andThen(ColumnAccessor next) {
+        return target -> {
+            Object nested = get(target);
+            return nested == null ? null : next.get(nested);
+        };
+    }
+}
@@ -0,0 +1,260 @@
+package org.writer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Индекс смещений строк, который CsvWriter пишет рядом с файлом данных.
+ *
+ * <p>Индекс хранит смещение в байтах каждой K-й строки данных, общее число строк и, по желанию,
+ * минимальные и максимальные значения выбранных колонок. Смещения записываются в момент записи строк,
+ * поэтому они верны и для значений с переводами строк внутри кавычек, где построчный просмотр файла ошибается.
+ * С помощью индекса можно перейти к строке N или разделить файл между обработчиками по границам записей.
+ */
+public final class CsvIndex {
+
+    /**
+     * Суффикс, добавляемый к имени файла данных.
+     */
+    public static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 1;
+
+    private final long rowCount;
+    private final int interval;
+    private final long dataEnd;
+    private final long[] offsets;
+    private final Map<String, ColumnRange> ranges;
+
+    CsvIndex(long rowCount, int interval, long dataEnd, long[] offsets, Map<String, ColumnRange> ranges) {
+        this.rowCount = rowCount;
+        this.interval = interval;
+        this.dataEnd = dataEnd;
+        this.offsets = offsets;
+        this.ranges = Collections.unmodifiableMap(new LinkedHashMap<>(ranges));
+    }
+
+    /**
+     * Возвращает путь файла индекса для файла данных.
+     *
+     * @param dataFile путь файла данных
+     * @return путь файла индекса
+     */
+    public static Path pathFor(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Читает индекс из файла.
+     *
+     * @param indexFile путь файла индекса
+     * @return прочитанный индекс
+     * @throws IllegalArgumentException если файл не является индексом CsvWriter
+     * @throws RuntimeException если произошла ошибка чтения файла
+     */
+    public static CsvIndex read(Path indexFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalArgumentException("Not a CsvWriter index file: " + indexFile);
+            }
+            long rowCount = in.readLong();
+            int interval = in.readInt();
+            long dataEnd = in.readLong();
+
+            long[] offsets = new long[in.readInt()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+
+            Map<String, ColumnRange> ranges = new LinkedHashMap<>();
+            int rangeCount = in.readInt();
+            for (int i = 0; i < rangeCount; i++) {
+                String column = readString(in);
+                ranges.put(column, new ColumnRange(readString(in), readString(in)));
+            }
+            return new CsvIndex(rowCount, interval, dataEnd, offsets, ranges);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading index file: " + indexFile, e);
+        }
+    }
+
+    /**
+     * Записывает индекс в файл.
+     *
+     * @param indexFile путь файла индекса
+     * @throws IOException если произошла ошибка записи
+     */
+    void write(Path indexFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(rowCount);
+            out.writeInt(interval);
+            out.writeLong(dataEnd);
+
+            out.writeInt(offsets.length);
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+
+            out.writeInt(ranges.size());
+            for (Map.Entry<String, ColumnRange> range : ranges.entrySet()) {
+                writeString(out, range.getKey());
+                writeString(out, range.getValue().min());
+                writeString(out, range.getValue().max());
+            }
+        }
+    }
+
+    /**
+     * Возвращает общее число строк данных без заголовка.
+     *
+     * @return число строк
+     */
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Возвращает шаг индекса: смещение хранится для каждой interval-й строки.
+     *
+     * @return шаг индекса
+     */
+    public int interval() {
+        return interval;
+    }
+
+    /**
+     * Возвращает смещение первой строки данных, сразу после заголовка.
+     *
+     * @return смещение в байтах
+     */
+    public long dataStart() {
+        return offsets.length > 0 ? offsets[0] : dataEnd;
+    }
+
+    /**
+     * Возвращает смещение конца данных, то есть длину файла.
+     *
+     * @return смещение в байтах
+     */
+    public long dataEnd() {
+        return dataEnd;
+    }
+
+    /**
+     * Находит ближайшую проиндексированную строку не дальше заданной.
+     *
+     * @param row номер строки данных, начиная с 0
+     * @return смещение проиндексированной строки и сколько записей от нее пропустить до нужной
+     * @throws IndexOutOfBoundsException если строки с таким номером нет
+     */
+    public RowPosition seek(long row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of range [0, " + rowCount + ")");
+        }
+        int entry = (int) (row / interval);
+        return new RowPosition(offsets[entry], row - (long) entry * interval);
+    }
+
+    /**
+     * Делит файл на части примерно одинакового числа строк по границам проиндексированных строк.
+     * Части идут подряд и вместе покрывают все данные; частей может оказаться меньше запрошенного,
+     * если проиндексированных строк не хватает.
+     *
+     * @param parts желаемое число частей
+     * @return части файла по порядку
+     * @throws IllegalArgumentException если parts не положительно
+     */
+    public List<Split> splits(int parts) {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Number of parts must be positive");
+        }
+        List<Split> splits = new ArrayList<>();
+        if (rowCount == 0) {
+            return splits;
+        }
+
+        // Число проиндексированных строк на часть, с округлением вверх
+        int entriesPerPart = (offsets.length + parts - 1) / parts;
+        for (int entry = 0; entry < offsets.length; entry += entriesPerPart) {
+            int nextEntry = entry + entriesPerPart;
+            long firstRow = (long) entry * interval;
+            long endRow = nextEntry < offsets.length ? (long) nextEntry * interval : rowCount;
+            long endOffset = nextEntry < offsets.length ? offsets[nextEntry] : dataEnd;
+            splits.add(new Split(firstRow, endRow - firstRow, offsets[entry], endOffset));
+        }
+        return splits;
+    }
+
+    /**
+     * Возвращает минимальное и максимальное значения колонки, если для нее собиралась статистика
+     * и в ней было хотя бы одно значение, отличное от null.
+     *
+     * @param column имя колонки в заголовке
+     * @return диапазон значений колонки
+     */
+    public Optional<ColumnRange> range(String column) {
+        return Optional.ofNullable(ranges.get(column));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Позиция для перехода к строке: смещение проиндексированной строки и число записей,
+     * которые нужно пропустить после нее.
+     *
+     * @param offset смещение проиндексированной строки в байтах
+     * @param rowsToSkip сколько записей пропустить, чтобы дойти до нужной строки
+     */
+    public record RowPosition(long offset, long rowsToSkip) {
+    }
+
+    /**
+     * Часть файла для отдельного обработчика.
+     *
+     * @param firstRow номер первой строки части
+     * @param rowCount число строк в части
+     * @param startOffset смещение начала части в байтах
+     * @param endOffset смещение конца части в байтах, не включительно
+     */
+    public record Split(long firstRow, long rowCount, long startOffset, long endOffset) {
+    }
+
+    /**
+     * Минимальное и максимальное значения колонки в текстовом виде.
+     * <p>
+     * Значения выбираются по естественному порядку исходных объектов (числа по величине,
+     * перечисления по порядку объявления) и сохраняются через {@code toString()}. Сами строки
+     * в таком порядке не сравнимы: {@code "9"} больше {@code "10"}, а {@code "JANUARY"} больше
+     * {@code "DECEMBER"}. Для отбора частей файла значение нужно привести к исходному типу колонки.
+     *
+     * @param min минимальное значение
+     * @param max максимальное значение
+     */
+    public record ColumnRange(String min, String max) {
+    }
+}
@@ -0,0 +1,419 @@
+package org.writer;
+
+import org.writer.annotation.CsvColumn;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Схема CSV для класса: упорядоченный список колонок со скомпилированными способами получения значений.
+ *
+ * <p>Колонки берутся из полей, getter-методов и компонентов record, аннотированных @CsvColumn.
+ * Вложенные типы с {@link CsvColumn#flatten()} раскладываются на колонки с префиксом, например {@code address.city}.
+ * Схема строится один раз на класс и кэшируется, поэтому при записи строк рефлексивный обход не повторяется.
+ *
+ * <p>Схема применима и к подклассам своего типа: {@link #accessorsFor(Class)} сопоставляет колонки
+ * конкретного класса строки колонкам схемы по исходным именам. Для списков из разных классов
+ * {@link #union(Collection)} строит объединение их колонок.
+ */
+final class CsvSchema {
+
+    private static final ClassValue<CsvSchema> CACHE = new ClassValue<>() {
+        @Override
+        protected CsvSchema computeValue(Class<?> type) {
+            return new CsvSchema(type, compile(type, new HashSet<>()), false);
+        }
+    };
+
+    /**
+     * Значение колонки, которой нет у класса строки.
+     */
+    private static final ColumnAccessor MISSING = target -> null;
+
+    /**
+     * Сколько проекций кэшируется в одной схеме. Схемы классов живут, пока загружен класс, поэтому
+     * проекции, собранные, например, из параметров запросов, не должны накапливаться без ограничения.
+     */
+    static final int MAX_CACHED_PROJECTIONS = 64;
+
+    private final Class<?> type;
+    private final List<Column> columns;
+
+    /**
+     * Колонки собраны из нескольких классов, и способы получения значений в них принадлежат разным классам.
+     */
+    private final boolean union;
+
+    /**
+     * Способы получения значений для конкретных классов строк, расставленные в порядке колонок этой схемы.
+     */
+    private final ClassValue<ColumnAccessor[]> bindings = new ClassValue<>() {
+        @Override
+        protected ColumnAccessor[] computeValue(Class<?> rowType) {
+            return bind(rowType);
+        }
+    };
+
+    /**
+     * Проекции этой схемы, построенные для разных наборов параметров выгрузки, не больше
+     * {@link #MAX_CACHED_PROJECTIONS}.
+     */
+    private final Map<Projection, CsvSchema> projections = new ConcurrentHashMap<>();
+
+    private CsvSchema(Class<?> type, List<Column> columns, boolean union) {
+        this.type = type;
+        this.columns = List.copyOf(columns);
+        this.union = union;
+    }
+
+    /**
+     * Возвращает схему класса, строя ее при первом обращении.
+     *
+     * @param type класс объектов строк
+     * @return схема класса
+     * @throws IllegalArgumentException если вложенные типы с flatten образуют цикл или не дают колонок,
+     *                                  или имена колонок повторяются
+     */
+    static CsvSchema of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Возвращает схему, объединяющую колонки нескольких классов. Колонки сопоставляются по исходным именам:
+     * сначала идут колонки первого класса, затем новые колонки следующих в порядке их появления.
+     * Тип схемы - ближайший общий суперкласс, поэтому схема применима к объектам всех переданных классов.
+     *
+     * @param types классы объектов строк, хотя бы один
+     * @return схема единственного класса или объединенная схема
+     * @throws IllegalArgumentException если вложенные типы с flatten образуют цикл
+     */
+    static CsvSchema union(Collection<Class<?>> types) {
+        Iterator<Class<?>> iterator = types.iterator();
+        Class<?> common = iterator.next();
+        if (!iterator.hasNext()) {
+            return of(common);
+        }
+
+        Map<String, Column> merged = new LinkedHashMap<>();
+        for (Class<?> type : types) {
+            while (!common.isAssignableFrom(type)) {
+                common = common.getSuperclass();
+            }
+            for (Column column : of(type).columns()) {
+                merged.putIfAbsent(column.key(), column);
+            }
+        }
+        return new CsvSchema(common, new ArrayList<>(merged.values()), true);
+    }
+
+    /**
+     * Возвращает способы получения значений колонок для объекта конкретного класса.
+     * Колонки, которых у класса нет, дают null. Результат вычисляется один раз на класс.
+     *
+     * @param rowType класс объекта строки
+     * @return способы получения значений в порядке колонок схемы; массив общий, изменять его нельзя
+     * @throws IllegalArgumentException если класс не является подклассом типа схемы
+     */
+    ColumnAccessor[] accessorsFor(Class<?> rowType) {
+        return bindings.get(rowType);
+    }
+
+    private ColumnAccessor[] bind(Class<?> rowType) {
+        if (!type.isAssignableFrom(rowType)) {
+            throw new IllegalArgumentException("Row of class " + rowType.getName()
+                    + " is not an instance of " + type.getName());
+        }
+        ColumnAccessor[] accessors = new ColumnAccessor[columns.size()];
+        if (rowType == type && !union) {
+            // Колонки схемы построены для этого же класса, сопоставлять их по именам не нужно
+            for (int i = 0; i < accessors.length; i++) {
+                accessors[i] = columns.get(i).accessor();
+            }
+            return accessors;
+        }
+        Map<String, ColumnAccessor> own = new HashMap<>();
+        for (Column column : of(rowType).columns()) {
+            own.put(column.key(), column.accessor());
+        }
+        for (int i = 0; i < accessors.length; i++) {
+            accessors[i] = own.getOrDefault(columns.get(i).key(), MISSING);
+        }
+        return accessors;
+    }
+
+    /**
+     * Возвращает класс, для которого построена схема.
+     *
+     * @return класс объектов строк
+     */
+    Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Возвращает колонки в порядке вывода.
+     *
+     * @return неизменяемый список колонок
+     */
+    List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * Возвращает схему, содержащую только выбранные колонки с учетом переименования.
+     * Проекция строится один раз и кэшируется в схеме класса, так что повторные выгрузки с теми же
+     * параметрами ее не пересобирают. Кэшируются первые {@link #MAX_CACHED_PROJECTIONS} проекций, остальные
+     * строятся при каждом вызове. Невыбранные колонки не попадают в схему и их значения не читаются.
+     *
+     * @param projection выбор и переименование колонок
+     * @return схема с выбранными колонками, или эта же схема, если проекция ничего не меняет
+     * @throws IllegalArgumentException если проекция ссылается на несуществующую колонку
+     */
+    CsvSchema project(Projection projection) {
+        if (projection.isIdentity()) {
+            return this;
+        }
+        CsvSchema cached = projections.get(projection);
+        if (cached != null) {
+            return cached;
+        }
+        // Проверка размера и вставка не атомарны, поэтому при гонке кэш может немного превысить предел
+        if (projections.size() >= MAX_CACHED_PROJECTIONS) {
+            return compileProjection(projection);
+        }
+        return projections.computeIfAbsent(projection, this::compileProjection);
+    }
+
+    private CsvSchema compileProjection(Projection projection) {
+        Map<String, Column> byName = new LinkedHashMap<>();
+        for (Column column : columns) {
+            byName.put(column.name(), column);
+        }
+        checkColumnsExist(byName.keySet(), projection.exclude());
+        checkColumnsExist(byName.keySet(), projection.rename().keySet());
+
+        Collection<String> selected = byName.keySet();
+        if (projection.include() != null) {
+            checkColumnsExist(byName.keySet(), projection.include());
+            selected = projection.include();
+        }
+
+        List<Column> projected = new ArrayList<>();
+        for (String name : selected) {
+            if (!projection.exclude().contains(name)) {
+                Column column = byName.get(name);
+                String header = projection.rename().getOrDefault(name, name);
+                projected.add(new Column(header, column.key(), column.accessor()));
+            }
+        }
+        return new CsvSchema(type, projected, union);
+    }
+
+    private void checkColumnsExist(Set<String> existing, Collection<String> requested) {
+        for (String name : requested) {
+            if (!existing.contains(name)) {
+                throw new IllegalArgumentException("Unknown column '" + name + "' in class " + type.getName());
+            }
+        }
+    }
+
+    /**
+     * Собирает колонки класса, раскладывая вложенные типы с flatten.
+     *
+     * @param type класс для анализа
+     * @param path классы, которые уже раскладываются выше по цепочке, для обнаружения циклов
+     * @return колонки, отсортированные по order
+     * @throws IllegalArgumentException если вложенные типы образуют цикл, вложенный тип не дает колонок
+     *                                  или имена колонок повторяются
+     */
+    private static List<Column> compile(Class<?> type, Set<Class<?>> path) {
+        if (!path.add(type)) {
+            throw new IllegalArgumentException("Cyclic @CsvColumn(flatten = true) reference through " + type.getName());
+        }
+
+        List<Member> members = type.isRecord() ? recordMembers(type) : classMembers(type);
+        // Сортируем по order, сортировка устойчивая, поэтому при равных order сохраняется порядок объявления
+        members.sort(Comparator.comparingInt(member -> member.annotation().order()));
+
+        List<Column> columns = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Member member : members) {
+            CsvColumn annotation = member.annotation();
+            String name = annotation.name().isEmpty() ? member.name() : annotation.name();
+            if (annotation.flatten()) {
+                List<Column> nestedColumns = compile(member.valueType(), path);
+                // Без колонок вложенного типа член класса пропал бы из вывода без следа
+                if (nestedColumns.isEmpty()) {
+                    throw new IllegalArgumentException("No @CsvColumn annotated fields found in flattened type "
+                            + member.valueType().getName() + " of " + type.getName() + "." + member.name());
+                }
+                for (Column nested : nestedColumns) {
+                    String nestedName = name + "." + nested.name();
+                    columns.add(new Column(nestedName, nestedName, member.accessor().andThen(nested.accessor())));
+                }
+            } else {
+                columns.add(new Column(name, name, member.accessor()));
+            }
+        }
+
+        // Проекция, объединение, индекс и ключ шардирования находят колонки по имени
+        for (Column column : columns) {
+            if (!names.add(column.name())) {
+                throw new IllegalArgumentException("Duplicate column name '" + column.name() + "' in class "
+                        + type.getName());
+            }
+        }
+
+        path.remove(type);
+        return columns;
+    }
+
+    /**
+     * Собирает аннотированные компоненты record. Аннотации компонентов также переносятся компилятором
+     * на поля и методы доступа, поэтому они отдельно не просматриваются.
+     */
+    private static List<Member> recordMembers(Class<?> type) {
+        List<Member> members = new ArrayList<>();
+        for (RecordComponent component : type.getRecordComponents()) {
+            CsvColumn annotation = component.getAnnotation(CsvColumn.class);
+            if (annotation != null) {
+                Method accessor = component.getAccessor();
+                members.add(new Member(component.getName(), component.getType(), annotation, methodAccessor(accessor)));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Собирает аннотированные поля и getter-методы обычного класса вместе с унаследованными.
+     * Члены суперклассов идут раньше, поэтому при равных order колонки базового класса выводятся первыми.
+     */
+    private static List<Member> classMembers(Class<?> type) {
+        List<Member> members = new ArrayList<>();
+        Set<String> annotatedGetters = new HashSet<>();
+        for (Class<?> level = type; level != null && level != Object.class; level = level.getSuperclass()) {
+            members.addAll(0, declaredMembers(level, annotatedGetters));
+        }
+        return members;
+    }
+
+    /**
+     * Собирает аннотированные члены, объявленные в самом классе.
+     *
+     * @param annotatedGetters имена аннотированных getter-методов из подклассов; метод, переопределенный
+     *                         в подклассе со своей аннотацией, пропускается
+     */
+    private static List<Member> declaredMembers(Class<?> type, Set<String> annotatedGetters) {
+        List<Member> members = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            CsvColumn annotation = field.getAnnotation(CsvColumn.class);
+            if (annotation != null) {
+                members.add(new Member(field.getName(), field.getType(), annotation, fieldAccessor(field)));
+            }
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            CsvColumn annotation = method.getAnnotation(CsvColumn.class);
+            // Компилятор копирует аннотации на bridge-методы ковариантных переопределений
+            if (annotation == null || method.isBridge()) {
+                continue;
+            }
+            if (method.getParameterCount() != 0 || method.getReturnType() == void.class
+                    || Modifier.isStatic(method.getModifiers())) {
+                throw new IllegalArgumentException("@CsvColumn method must be a non-static getter without parameters: "
+                        + type.getName() + "." + method.getName());
+            }
+            if (!annotatedGetters.add(method.getName())) {
+                continue;
+            }
+            members.add(new Member(propertyName(method), method.getReturnType(), annotation, methodAccessor(method)));
+        }
+        return members;
+    }
+
+    /**
+     * Возвращает имя свойства getter-метода: getFirstName и isActive дают firstName и active.
+     */
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix || !Character.isUpperCase(name.charAt(prefix))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static ColumnAccessor fieldAccessor(Field field) {
+        // Доступ открывается один раз при построении схемы, а не при чтении каждой строки
+        field.setAccessible(true);
+        return target -> {
+            try {
+                return field.get(target);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Error accessing field: " + field.getName(), e);
+            }
+        };
+    }
+
+    private static ColumnAccessor methodAccessor(Method method) {
+        method.setAccessible(true);
+        return target -> {
+            try {
+                return method.invoke(target);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException("Error invoking method: " + method.getName(), e);
+            }
+        };
+    }
+
+    /**
+     * Колонка схемы: имя в заголовке, исходное имя до переименования и способ получения значения.
+     * По исходному имени колонки разных классов сопоставляются друг с другом.
+     */
+    record Column(String name, String key, ColumnAccessor accessor) {
+    }
+
+    /**
+     * Выбор и переименование колонок схемы. Служит ключом кэша проекций, поэтому хранит неизменяемые копии.
+     *
+     * @param include имена колонок для вывода в нужном порядке, или null для всех колонок в порядке схемы
+     * @param exclude имена колонок, которые не выводятся
+     * @param rename новые имена колонок в заголовке по исходным именам
+     */
+    record Projection(List<String> include, Set<String> exclude, Map<String, String> rename) {
+
+        Projection {
+            include = include == null ? null : List.copyOf(include);
+            exclude = Set.copyOf(exclude);
+            rename = Map.copyOf(rename);
+        }
+
+        /**
+         * Проверяет, что проекция оставляет схему без изменений.
+         *
+         * @return true, если колонки не выбираются, не исключаются и не переименовываются
+         */
+        boolean isIdentity() {
+            return include == null && exclude.isEmpty() && rename.isEmpty();
+        }
+    }
+
+    /**
+     * Аннотированный элемент класса до раскладки вложенных типов.
+     */
+    private record Member(String name, Class<?> valueType, CsvColumn annotation, ColumnAccessor accessor) {
+    }
+}
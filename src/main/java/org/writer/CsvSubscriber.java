@@ -0,0 +1,182 @@
+package org.writer;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+
+/**
+ * Подписчик {@link Flow.Publisher}, записывающий получаемые объекты в CSV файл по мере поступления.
+ *
+ * <p>Объекты запрашиваются партиями. Следующая партия запрашивается только после того, как предыдущая записана,
+ * поэтому медленный диск притормаживает издателя, а не копит объекты в памяти. Если размер партии не задан,
+ * он подбирается по среднему размеру уже записанных строк так, чтобы партия заполняла буфер вывода.
+ * Результат записи - число записанных строк - доступен через {@link #result()}.
+ *
+ * <p>Создается методом {@link CsvWriter#subscriber(Class, String, ExportOptions)} и подписывается на одного издателя.
+ *
+ * @param <T> тип объектов
+ */
+public final class CsvSubscriber<T> implements Flow.Subscriber<T> {
+
+    /**
+     * Верхняя граница автоматически подобранной партии.
+     */
+    private static final int MAX_BATCH_SIZE = 1 << 16;
+
+    private final CsvWriter csvWriter;
+    private final RowFormatter formatter;
+    private final Path path;
+    private final ExportOptions options;
+    private final Predicate<Object> filter;
+    private final IndexBuilder index;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private ByteBufferWriter writer;
+    private long dataStart;
+    private long received;
+    private long written;
+    private long outstanding;
+
+    CsvSubscriber(CsvWriter csvWriter, RowFormatter formatter, Path path, ExportOptions options) {
+        this.csvWriter = csvWriter;
+        this.formatter = formatter;
+        this.path = path;
+        this.options = options;
+        this.filter = CsvWriter.rowFilter(options, formatter);
+        this.index = csvWriter.createIndex(formatter, options);
+    }
+
+    /**
+     * Возвращает результат записи: число записанных строк после завершения потока,
+     * или исключение, если издатель сообщил об ошибке или запись не удалась.
+     *
+     * @return результат записи
+     */
+    public CompletableFuture<Long> result() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            // Подписчик рассчитан на одного издателя
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+
+        try {
+            CsvWriter.deleteStaleSidecars(path);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                // Объем потока заранее неизвестен, поэтому оценка размера не делается
+                writer = csvWriter.openWriter(channel, IoTuner.UNKNOWN_SIZE, options);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            writer.write(formatter.header());
+            dataStart = writer.position();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            return;
+        }
+
+        outstanding = options.getBatchSize() > 0 ? options.getBatchSize() : options.getSampleSize();
+        subscription.request(outstanding);
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (result.isDone()) {
+            return;
+        }
+
+        try {
+            if (filter == null || filter.test(item)) {
+                CsvWriter.writeRow(writer, formatter, index, item);
+                written++;
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            return;
+        }
+
+        received++;
+        if (--outstanding == 0) {
+            outstanding = nextBatchSize();
+            subscription.request(outstanding);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!result.isDone()) {
+            closeQuietly();
+            result.completeExceptionally(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            long dataEnd = writer.position();
+            IoSettings settings = writer.ioSettings(CsvWriter.rowWidth(dataEnd - dataStart, written));
+            writer.close();
+            if (index != null) {
+                index.write(CsvIndex.pathFor(path), dataEnd);
+            }
+            if (options.getShard() != null) {
+                ShardManifest.completePart(path, options.getShard(), written, dataStart, dataEnd);
+            }
+            CsvWriter.reportIoSettings(settings, options);
+            result.complete(written);
+        } catch (IOException e) {
+            result.completeExceptionally(new RuntimeException("Error writing to file: " + path, e));
+        }
+    }
+
+    /**
+     * Подбирает размер следующей партии: заданный в параметрах или столько строк,
+     * сколько в среднем помещается в буфер вывода. Буфер сам подстраивается под скорость вывода,
+     * поэтому вместе с ним растут и партии.
+     */
+    private long nextBatchSize() {
+        if (options.getBatchSize() > 0) {
+            return options.getBatchSize();
+        }
+        long bytesPerRow = Math.max(1, (writer.position() - dataStart) / received);
+        return Math.max(1, Math.min(MAX_BATCH_SIZE, writer.capacity() / bytesPerRow));
+    }
+
+    /**
+     * Отменяет подписку и завершает результат ошибкой записи.
+     */
+    private void fail(Exception e) {
+        subscription.cancel();
+        closeQuietly();
+        result.completeExceptionally(e instanceof IOException
+                ? new RuntimeException("Error writing to file: " + path, e)
+                : e);
+    }
+
+    private void closeQuietly() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // Исходная ошибка важнее ошибки закрытия
+        }
+    }
+}
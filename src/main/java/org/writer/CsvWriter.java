@@ -1,22 +1,29 @@
 package org.writer;
 
-import org.writer.annotation.CsvColumn;
-
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
 
 /**
  * Реализация интерфейса Writable для записи объектов в CSV формат.
- * Использует рефлексию для извлечения значений полей из объектов и аннотации для настройки вывода.
+ * Колонки описываются аннотациями @CsvColumn, значения извлекаются по схеме, построенной один раз на класс.
  */
 public class CsvWriter implements Writable {
 
-    private static final String DELIMITER = ",";
-    private static final String LINE_SEPARATOR = System.lineSeparator();
+    /**
+     * Windows не позволяет обрезать файл, пока он отображен в память, поэтому вывод через отображение там недоступен.
+     */
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
 
     /**
      * Записывает список объектов в CSV файл.
@@ -29,125 +36,461 @@ public class CsvWriter implements Writable {
      */
     @Override
     public void writeToFile(List<?> data, String fileName) {
+        writeToFile(data, fileName, ExportOptions.defaults());
+    }
+
+    /**
+     * Записывает список объектов в CSV файл с заданными параметрами выгрузки.
+     * Параметры позволяют выбрать и переименовать колонки, а также отобрать строки условием.
+     * Список может содержать объекты подклассов: колонки берутся из объявленного базового типа
+     * {@link ExportOptions#getRowType()} (по умолчанию - из класса первого объекта) или объединяются
+     * по всем классам списка, если задан {@link ExportOptions#isUnionColumns()}.
+     * В режиме {@link WriteMode#APPEND} прерванную запись можно продолжить, повторно вызвав метод с тем же списком.
+     * С параметром {@link ExportOptions#getShard()} пишется только своя часть строк в отдельный файл части.
+     *
+     * @param data список объектов для записи
+     * @param fileName имя выходного файла
+     * @param options параметры выгрузки
+     * @throws IllegalArgumentException если data равен null или пустой, параметры некорректны, не выбрано ни одной колонки
+     *                                  или объект списка не является экземпляром объявленного базового типа
+     * @throws IllegalStateException если существующий файл нельзя безопасно дописать
+     * @throws RuntimeException если произошла ошибка при записи файла
+     */
+    public void writeToFile(List<?> data, String fileName, ExportOptions options) {
         if (data == null || data.isEmpty()) {
             throw new IllegalArgumentException("Data list cannot be null or empty");
         }
+        validateOptions(options);
+
+        CsvSchema schema;
+        if (options.isUnionColumns()) {
+            schema = CsvSchema.union(rowTypes(data));
+        } else {
+            schema = CsvSchema.of(options.getRowType() != null ? options.getRowType() : data.get(0).getClass());
+        }
+        RowFormatter formatter = createFormatter(schema, options);
+        Predicate<Object> filter = rowFilter(options, formatter);
+        Path path = outputPath(fileName, options);
+
+        try {
+            if (options.getMode() == WriteMode.APPEND) {
+                appendRows(data, path, formatter, filter, options);
+            } else {
+                writeRows(data, path, formatter, filter, options);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to file: " + fileName, e);
+        }
+    }
 
-        Class<?> clazz = data.get(0).getClass();
-        List<FieldInfo> fields = getAnnotatedFields(clazz);
+    /**
+     * Создает подписчика {@link Flow.Publisher}, который пишет получаемые объекты в CSV файл по мере поступления.
+     * Объекты запрашиваются партиями, поэтому медленный диск притормаживает издателя, а не накапливает данные в памяти.
+     * Файл открывается при подписке, результат записи доступен через {@link CsvSubscriber#result()}.
+     *
+     * @param type класс объектов, по которому строится схема колонок
+     * @param fileName имя выходного файла
+     * @param options параметры выгрузки; режим {@link WriteMode#APPEND} и объединение колонок
+     *                {@link ExportOptions#isUnionColumns()} не поддерживаются
+     * @param <T> тип объектов
+     * @return подписчик, который можно передать издателю
+     * @throws IllegalArgumentException если параметры некорректны или не выбрано ни одной колонки
+     */
+    public <T> CsvSubscriber<T> subscriber(Class<T> type, String fileName, ExportOptions options) {
+        validateOptions(options);
+        if (options.getMode() == WriteMode.APPEND) {
+            throw new IllegalArgumentException("APPEND mode is not supported for streaming export");
+        }
+        // Поток нельзя просмотреть заранее, поэтому колонки берутся только из переданного класса
+        if (options.isUnionColumns()) {
+            throw new IllegalArgumentException("Union of columns is not supported for streaming export");
+        }
+        return new CsvSubscriber<>(this, createFormatter(CsvSchema.of(type), options),
+                outputPath(fileName, options), options);
+    }
 
-        if (fields.isEmpty()) {
+    /**
+     * Возвращает путь выходного файла: указанный или, для части разделенной выгрузки, путь файла части.
+     */
+    private static Path outputPath(String fileName, ExportOptions options) {
+        Path path = Path.of(fileName);
+        return options.getShard() != null ? ShardManifest.partPath(path, options.getShard().shardId()) : path;
+    }
+
+    /**
+     * Собирает классы объектов списка в порядке первого появления.
+     * Подряд идущие объекты одного класса сравниваются по ссылке, так что однородный список
+     * обходится без обращений к множеству.
+     */
+    private static Set<Class<?>> rowTypes(List<?> data) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        Class<?> previous = null;
+        for (Object obj : data) {
+            // null не дает класса; ошибка о нем возникнет при форматировании строки
+            if (obj != null && obj.getClass() != previous) {
+                previous = obj.getClass();
+                types.add(previous);
+            }
+        }
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("Data list contains only null elements");
+        }
+        return types;
+    }
+
+    /**
+     * Проверяет числовые параметры выгрузки и их совместимость.
+     */
+    private void validateOptions(ExportOptions options) {
+        if (options.getCheckpointInterval() <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        if (options.getSampleSize() <= 0 || options.getMappedWindowSize() <= 0) {
+            throw new IllegalArgumentException("Sample size and mapped window size must be positive");
+        }
+        if (options.getOutput() == OutputMode.MEMORY_MAPPED && WINDOWS) {
+            throw new IllegalArgumentException("MEMORY_MAPPED output is not supported on Windows: "
+                    + "a file cannot be truncated while it is mapped");
+        }
+        if (options.getMinBufferSize() < 16 || options.getMaxBufferSize() < options.getMinBufferSize()) {
+            throw new IllegalArgumentException("Buffer size limits must satisfy 16 <= min <= max");
+        }
+        if (options.getBatchSize() < 0 || options.getIndexInterval() < 0) {
+            throw new IllegalArgumentException("Batch size and index interval cannot be negative");
+        }
+        if (options.getIndexInterval() == 0 && !options.getIndexedColumns().isEmpty()) {
+            throw new IllegalArgumentException("Indexed columns require a positive index interval");
+        }
+        if (options.getIndexInterval() > 0 && options.getMode() == WriteMode.APPEND) {
+            throw new IllegalArgumentException("Row index is not supported in APPEND mode");
+        }
+        if (options.getShard() != null && options.getMode() == WriteMode.APPEND) {
+            throw new IllegalArgumentException("Sharded export is not supported in APPEND mode");
+        }
+        if (options.isUnionColumns() && options.getRowType() != null) {
+            throw new IllegalArgumentException("Column union cannot be combined with a declared row type");
+        }
+    }
+
+    /**
+     * Строит форматирование строк по схеме классов: проекция колонок и кодировщик диалекта.
+     */
+    private RowFormatter createFormatter(CsvSchema classSchema, ExportOptions options) {
+        Class<?> clazz = classSchema.type();
+
+        if (classSchema.columns().isEmpty()) {
             throw new IllegalArgumentException("No @CsvColumn annotated fields found in class " + clazz.getName());
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
+        CsvSchema schema = classSchema.project(new CsvSchema.Projection(
+                options.getIncludeColumns(), options.getExcludeColumns(), options.getRenameColumns()));
+        if (schema.columns().isEmpty()) {
+            throw new IllegalArgumentException("No columns selected for class " + clazz.getName());
+        }
+
+        return new RowFormatter(schema, options.getDialect());
+    }
+
+    /**
+     * Создает построитель индекса смещений строк, если он запрошен в параметрах.
+     *
+     * @return построитель индекса или null, если индекс не нужен
+     */
+    IndexBuilder createIndex(RowFormatter formatter, ExportOptions options) {
+        if (options.getIndexInterval() == 0) {
+            return null;
+        }
+        List<String> names = List.copyOf(options.getIndexedColumns());
+        int[] columns = names.stream()
+                .mapToInt(formatter::columnIndex)
+                .toArray();
+        return new IndexBuilder(options.getIndexInterval(), columns, names);
+    }
+
+    /**
+     * Удаляет файлы, сопровождающие прежнее содержимое файла данных и больше ему не соответствующие.
+     */
+    static void deleteStaleSidecars(Path path) throws IOException {
+        Files.deleteIfExists(CheckpointFile.pathFor(path));
+        Files.deleteIfExists(CsvIndex.pathFor(path));
+        Files.deleteIfExists(ShardManifest.completionPath(path));
+    }
+
+    /**
+     * Форматирует объект и записывает строку, отмечая ее начало в индексе.
+     *
+     * @param index построитель индекса или null
+     */
+    static void writeRow(ByteBufferWriter writer, RowFormatter formatter, IndexBuilder index,
+                         Object obj) throws IOException {
+        CharSequence row = formatter.format(obj);
+        if (index != null) {
+            index.add(writer.position(), formatter);
+        }
+        writer.append(row);
+    }
+
+    /**
+     * Перезаписывает файл: заголовок и все строки данных.
+     */
+    private void writeRows(List<?> data, Path path, RowFormatter formatter, Predicate<Object> filter,
+                           ExportOptions options) throws IOException {
+        deleteStaleSidecars(path);
+        IndexBuilder index = createIndex(formatter, options);
+        long dataStart;
+        long dataEnd;
+        long rows = 0;
+        IoSettings settings;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             ByteBufferWriter writer = openWriter(channel,
+                     estimateOutputSize(data, 0, formatter, true, options), options)) {
             // Записываем заголовок
-            String header = fields.stream()
-                    .map(FieldInfo::columnName)
-                    .collect(Collectors.joining(DELIMITER));
-            writer.write(header);
-            writer.write(LINE_SEPARATOR);
+            writer.write(formatter.header());
+            dataStart = writer.position();
 
             // Записываем строки данных
             for (Object obj : data) {
-                String row = fields.stream()
-                        .map(fieldInfo -> getFieldValue(obj, fieldInfo.field()))
-                        .map(this::formatValue)
-                        .collect(Collectors.joining(DELIMITER));
-                writer.write(row);
-                writer.write(LINE_SEPARATOR);
+                if (filter == null || filter.test(obj)) {
+                    writeRow(writer, formatter, index, obj);
+                    rows++;
+                }
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Error writing to file: " + fileName, e);
+            dataEnd = writer.position();
+            settings = writer.ioSettings(rowWidth(dataEnd - dataStart, rows));
+        }
+
+        if (index != null) {
+            index.write(CsvIndex.pathFor(path), dataEnd);
+        }
+        if (options.getShard() != null) {
+            ShardManifest.completePart(path, options.getShard(), rows, dataStart, dataEnd);
         }
+        reportIoSettings(settings, options);
     }
 
     /**
-     * Получает все поля, аннотированные @CsvColumn, из класса.
-     * Поля сортируются по атрибуту order.
-     *
-     * @param clazz класс для анализа
-     * @return список информации о полях, отсортированный по order
+     * Дописывает строки в конец файла, сохраняя контрольные точки.
+     * Если найдена контрольная точка прерванной записи, файл обрезается до нее,
+     * а уже записанные строки пропускаются.
      */
-    private List<FieldInfo> getAnnotatedFields(Class<?> clazz) {
-        List<FieldInfo> fieldInfos = new ArrayList<>();
+    private void appendRows(List<?> data, Path path, RowFormatter formatter, Predicate<Object> filter,
+                            ExportOptions options) throws IOException {
+        int checkpointInterval = options.getCheckpointInterval();
+        Path checkpointPath = CheckpointFile.pathFor(path);
+        // После дозаписи прежний индекс не покрывает новые строки
+        Files.deleteIfExists(CsvIndex.pathFor(path));
+        IoSettings settings;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             CheckpointFile checkpoints = CheckpointFile.open(checkpointPath)) {
+            int written = 0;
+
+            CheckpointFile.Checkpoint checkpoint = checkpoints.latest();
+            if (checkpoint != null) {
+                if (checkpoint.rows() > data.size() || checkpoint.offset() > channel.size()) {
+                    throw new IllegalStateException("Checkpoint " + checkpointPath
+                            + " does not match file " + path + " or the provided data");
+                }
+                // Заголовок лежит до контрольной точки; нулевое смещение означает, что файл был пуст
+                if (checkpoint.offset() > 0) {
+                    validateHeader(channel, path, formatter.header());
+                }
+                // Отбрасываем недописанный хвост после последней контрольной точки,
+                // в том числе нули, которыми файл был расширен перед отображением в память
+                channel.truncate(checkpoint.offset());
+                written = (int) checkpoint.rows();
+            } else if (channel.size() > 0) {
+                validateHeader(channel, path, formatter.header());
+                ensureLastRowComplete(channel, path, formatter.lineEnding());
+            }
+            boolean newFile = channel.size() == 0;
+            channel.position(channel.size());
 
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(CsvColumn.class)) {
-                CsvColumn annotation = field.getAnnotation(CsvColumn.class);
-                String columnName = annotation.name().isEmpty() ? field.getName() : annotation.name();
-                fieldInfos.add(new FieldInfo(field, columnName, annotation.order()));
+            // Отображение в память расширяет файл до ожидаемого размера, поэтому точка возобновления
+            // должна быть сохранена до этого, иначе сбой оставит файл с нулевым хвостом без контрольной точки
+            if (checkpoint == null) {
+                channel.force(false);
+                checkpoints.write(written, channel.size());
             }
+
+            // Буферизованная дозапись не читает строки заранее: при сбое на получении строки
+            // все предыдущие должны успеть попасть в файл и контрольную точку
+            long estimatedSize = options.getOutput() == OutputMode.MEMORY_MAPPED
+                    ? estimateOutputSize(data, written, formatter, newFile, options)
+                    : IoTuner.UNKNOWN_SIZE;
+            ByteBufferWriter writer = openWriter(channel, estimatedSize, options);
+            if (newFile) {
+                writer.write(formatter.header());
+            }
+            writer.sync();
+            checkpoints.write(written, writer.position());
+            long dataStart = writer.position();
+
+            long rows = 0;
+            for (int i = written; i < data.size(); i++) {
+                Object obj = data.get(i);
+                if (filter == null || filter.test(obj)) {
+                    writeRow(writer, formatter, null, obj);
+                    rows++;
+                }
+                if ((i + 1 - written) % checkpointInterval == 0) {
+                    writer.sync();
+                    checkpoints.write(i + 1L, writer.position());
+                }
+            }
+            writer.sync();
+            settings = writer.ioSettings(rowWidth(writer.position() - dataStart, rows));
+            writer.close();
         }
 
-        // Сортируем по order
-        fieldInfos.sort(Comparator.comparingInt(FieldInfo::order));
-        return fieldInfos;
+        // Запись завершена, продолжать нечего
+        Files.delete(checkpointPath);
+        reportIoSettings(settings, options);
+    }
+
+    /**
+     * Возвращает средний размер строки в байтах, или 0, если строк не было.
+     */
+    static double rowWidth(long bytes, long rows) {
+        return rows == 0 ? 0 : (double) bytes / rows;
     }
 
     /**
-     * Извлекает значение поля из объекта с использованием рефлексии.
+     * Передает выбранные параметры ввода-вывода получателю из параметров выгрузки, если он задан.
+     */
+    static void reportIoSettings(IoSettings settings, ExportOptions options) {
+        if (options.getIoListener() != null) {
+            options.getIoListener().accept(settings);
+        }
+    }
+
+    /**
+     * Создает Writer для канала в соответствии с режимом вывода.
+     * Для буферизованного вывода оценка объема задает начальный размер буфера,
+     * для отображения в память - сколько места заранее выделить в файле.
      *
-     * @param obj объект, из которого извлекается значение
-     * @param field поле для извлечения
-     * @return значение поля, или null если извлечение не удалось
+     * @param estimatedSize оценка объема вывода в байтах или {@link IoTuner#UNKNOWN_SIZE}
      */
-    private Object getFieldValue(Object obj, Field field) {
-        try {
-            field.setAccessible(true);
-            return field.get(obj);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("Error accessing field: " + field.getName(), e);
+    ByteBufferWriter openWriter(FileChannel channel, long estimatedSize, ExportOptions options) throws IOException {
+        IoTuner tuner = new IoTuner(options.getMinBufferSize(), options.getMaxBufferSize(), estimatedSize);
+        if (options.getOutput() == OutputMode.MEMORY_MAPPED) {
+            return new MappedWriter(channel, Math.max(0, estimatedSize), options.getMappedWindowSize(), tuner);
         }
+        return new ChannelWriter(channel, tuner);
     }
 
     /**
-     * Форматирует значение для вывода в CSV.
-     * Обрабатывает null значения, коллекции и специальные символы, требующие экранирования.
+     * Оценивает объем вывода: заголовок, если он будет записан, и строки данных начиная с from.
      *
-     * @param value значение для форматирования
-     * @return отформатированное строковое значение
+     * @param withHeader будет ли записан заголовок
      */
-    private String formatValue(Object value) {
-        if (value == null) {
-            return "";
+    private long estimateOutputSize(List<?> data, int from, RowFormatter formatter, boolean withHeader,
+                                    ExportOptions options) {
+        long estimatedSize = estimateSize(data, from, formatter, options);
+        if (withHeader) {
+            estimatedSize += ByteBufferWriter.utf8Length(formatter.header());
         }
+        return estimatedSize;
+    }
 
-        // Обрабатываем коллекции
-        if (value instanceof Collection<?> collection) {
-            String joined = collection.stream()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(";"));
-            return escapeValue(joined);
+    /**
+     * Оценивает размер строк данных в байтах по выборке первых sampleSize строк, начиная с from.
+     * Строки чужих частей разделенной выгрузки в выборке не форматируются и учитываются как пустые.
+     * Условие пользователя в выборке не вызывается: оно должно срабатывать ровно один раз на строку,
+     * а отбор только уменьшает фактический объем по сравнению с оценкой.
+     * К оценке добавляется запас 10% на случай, если выборка короче средних строк.
+     */
+    private long estimateSize(List<?> data, int from, RowFormatter formatter, ExportOptions options) {
+        int to = Math.min(data.size(), from + options.getSampleSize());
+        if (to <= from) {
+            return 0;
         }
 
-        // Обрабатываем enum
-        if (value instanceof Enum<?>) {
-            return value.toString();
+        Predicate<Object> filter = shardFilter(options, formatter);
+        long sampledBytes = 0;
+        for (int i = from; i < to; i++) {
+            Object obj = data.get(i);
+            if (filter == null || filter.test(obj)) {
+                sampledBytes += ByteBufferWriter.utf8Length(formatter.format(obj));
+            }
         }
+        double bytesPerRow = (double) sampledBytes / (to - from);
+        return (long) (bytesPerRow * (data.size() - from) * 1.1);
+    }
 
-        return escapeValue(value.toString());
+    /**
+     * Возвращает условие отбора строк из параметров выгрузки: принадлежность строки своей части
+     * разделенной выгрузки и условие пользователя. Часть проверяется первой, поэтому условие пользователя
+     * вызывается только для своих строк. Тип условия пользователя соответствует типу элементов списка,
+     * который проверить на этапе компиляции нельзя.
+     * Вызывающий код проверяет условием каждую строку ровно один раз.
+     *
+     * @return условие отбора или null, если выводятся все строки
+     * @throws IllegalArgumentException если ключевой колонки части нет среди выводимых колонок
+     */
+    @SuppressWarnings("unchecked")
+    static Predicate<Object> rowFilter(ExportOptions options, RowFormatter formatter) {
+        Predicate<Object> filter = (Predicate<Object>) options.getRowFilter();
+        Predicate<Object> owned = shardFilter(options, formatter);
+        if (owned == null) {
+            return filter;
+        }
+        return filter == null ? owned : owned.and(filter);
     }
 
     /**
-     * Экранирует специальные символы в CSV значениях.
-     * Оборачивает значения в кавычки, если они содержат запятые, кавычки или переносы строк.
+     * Возвращает условие принадлежности строки своей части разделенной выгрузки. Оно зависит только
+     * от значения ключевой колонки, поэтому его можно вызывать для одной строки повторно.
      *
-     * @param value значение для экранирования
-     * @return экранированное значение
+     * @return условие или null, если выгрузка не разделена на части
+     * @throws IllegalArgumentException если ключевой колонки части нет среди выводимых колонок
+     */
+    private static Predicate<Object> shardFilter(ExportOptions options, RowFormatter formatter) {
+        ShardSpec shard = options.getShard();
+        if (shard == null) {
+            return null;
+        }
+        int keyColumn = formatter.columnIndex(shard.keyColumn());
+        return obj -> shard.owns(formatter.columnValue(obj, keyColumn));
+    }
+
+    /**
+     * Проверяет, что первая строка существующего файла совпадает с ожидаемым заголовком.
+     * Читается только начало файла длиной в заголовок. Для форматов без заголовка проверка не выполняется.
      */
-    private String escapeValue(String value) {
-        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
-            // Экранируем кавычки путем их удвоения
-            String escaped = value.replace("\"", "\"\"");
-            return "\"" + escaped + "\"";
+    private void validateHeader(FileChannel channel, Path path, String header) throws IOException {
+        byte[] expected = header.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer actual = ByteBuffer.allocate(expected.length);
+        long position = 0;
+        int read;
+        while (actual.hasRemaining() && (read = channel.read(actual, position)) > 0) {
+            position += read;
+        }
+
+        if (actual.hasRemaining() || !Arrays.equals(expected, actual.array())) {
+            String firstLine = new String(actual.array(), 0, actual.position(), StandardCharsets.UTF_8).lines()
+                    .findFirst()
+                    .orElse("");
+            throw new IllegalStateException("Header of existing file " + path + " does not match: expected '"
+                    + header.lines().findFirst().orElse("") + "', found '" + firstLine + "'");
         }
-        return value;
     }
 
     /**
-     * Внутренний класс для хранения метаданных поля.
+     * Проверяет, что файл без контрольной точки заканчивается окончанием строки.
+     * Иначе последняя строка недописана, а найти ее начало без полного чтения файла нельзя.
      */
-    private record FieldInfo(Field field, String columnName, int order) {
+    private void ensureLastRowComplete(FileChannel channel, Path path, String lineEnding) throws IOException {
+        byte[] expected = lineEnding.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer last = ByteBuffer.allocate(expected.length);
+        if (channel.size() >= expected.length) {
+            channel.read(last, channel.size() - expected.length);
+        }
+        if (last.hasRemaining() || !Arrays.equals(expected, last.array())) {
+            throw new IllegalStateException("File " + path + " ends with an incomplete row and has no checkpoint");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package org.writer;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.writer.dialect.DelimitedDialect;
+import org.writer.dialect.Dialect;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Параметры отдельной выгрузки в CSV файл.
+ */
+@Getter
+@Builder
+public class ExportOptions {
+
+    /**
+     * Режим открытия выходного файла.
+     */
+    @Builder.Default
+    private final WriteMode mode = WriteMode.TRUNCATE;
+
+    /**
+     * Формат вывода: CSV, TSV, фиксированная ширина, JSON Lines и т.п.
+     */
+    @Builder.Default
+    private final Dialect dialect = DelimitedDialect.DEFAULT;
+
+    /**
+     * Через сколько строк сохраняется контрольная точка в режиме {@link WriteMode#APPEND}.
+     */
+    @Builder.Default
+    private final int checkpointInterval = 10_000;
+
+    /**
+     * Способ вывода данных в файл.
+     */
+    @Builder.Default
+    private final OutputMode output = OutputMode.BUFFERED;
+
+    /**
+     * Сколько первых строк форматируется для оценки объема вывода: по оценке выбирается
+     * начальный размер буфера, а в режиме {@link OutputMode#MEMORY_MAPPED} заранее выделяется место в файле.
+     */
+    @Builder.Default
+    private final int sampleSize = 64;
+
+    /**
+     * Размер окна отображения файла в память в байтах для режима {@link OutputMode#MEMORY_MAPPED}.
+     */
+    @Builder.Default
+    private final long mappedWindowSize = 64L * 1024 * 1024;
+
+    /**
+     * Наименьший размер буфера вывода в байтах для режима {@link OutputMode#BUFFERED}.
+     * Буфер подбирается по оценке объема и наблюдаемой скорости вывода в границах
+     * от minBufferSize до maxBufferSize; равные границы задают постоянный размер.
+     */
+    @Builder.Default
+    private final int minBufferSize = 1024;
+
+    /**
+     * Наибольший размер буфера вывода в байтах для режима {@link OutputMode#BUFFERED}.
+     */
+    @Builder.Default
+    private final int maxBufferSize = 4 * 1024 * 1024;
+
+    /**
+     * Часть выгрузки, разделенной между несколькими процессами. Если задана, пишутся только строки этой части,
+     * в файл {@link ShardManifest#partPath(java.nio.file.Path, int)} вместо указанного.
+     * Не поддерживается в режиме {@link WriteMode#APPEND}.
+     */
+    private final ShardSpec shard;
+
+    /**
+     * Получает выбранные параметры ввода-вывода после успешного завершения выгрузки. Может быть не задан.
+     */
+    private final Consumer<IoSettings> ioListener;
+
+    /**
+     * Сколько объектов запрашивает у издателя {@link CsvSubscriber} за раз.
+     * Если 0, размер партии подбирается так, чтобы партия заполняла буфер вывода.
+     */
+    @Builder.Default
+    private final int batchSize = 0;
+
+    /**
+     * Шаг индекса смещений строк: если больше 0, рядом с файлом пишется индекс {@link CsvIndex}
+     * со смещением каждой indexInterval-й строки. Не поддерживается в режиме {@link WriteMode#APPEND}.
+     */
+    @Builder.Default
+    private final int indexInterval = 0;
+
+    /**
+     * Колонки, для которых в индекс записываются минимальное и максимальное значения.
+     * Значения этих колонок должны быть Comparable.
+     */
+    @Builder.Default
+    private final Set<String> indexedColumns = Set.of();
+
+    /**
+     * Базовый тип объектов списка, по которому строятся колонки. Объекты подклассов выводятся
+     * колонками базового типа, их собственные колонки не выводятся. Если не задан, базовым типом
+     * служит класс первого объекта. Для {@link CsvSubscriber} базовым типом служит класс,
+     * переданный при его создании.
+     */
+    private final Class<?> rowType;
+
+    /**
+     * Объединять колонки всех классов объектов списка. У объекта, в классе которого колонки нет,
+     * она остается пустой. Требует просмотра всего списка перед записью; несовместимо с {@link #rowType}
+     * и не поддерживается потоковой выгрузкой.
+     */
+    @Builder.Default
+    private final boolean unionColumns = false;
+
+    /**
+     * Имена колонок для вывода в нужном порядке. Если не заданы, выводятся все колонки в порядке order.
+     * Для разложенных вложенных объектов используются полные имена, например {@code address.city}.
+     */
+    private final List<String> includeColumns;
+
+    /**
+     * Имена колонок, которые не выводятся.
+     */
+    @Builder.Default
+    private final Set<String> excludeColumns = Set.of();
+
+    /**
+     * Новые имена колонок в заголовке по исходным именам.
+     */
+    @Builder.Default
+    private final Map<String, String> renameColumns = Map.of();
+
+    /**
+     * Условие отбора строк. Отброшенные строки не форматируются. Если не задано, выводятся все строки.
+     * Условие получает элементы списка данных, поэтому его тип должен соответствовать их типу.
+     * Для каждого элемента условие вызывается ровно один раз, так что оно может хранить состояние,
+     * например отбрасывать повторы. При дозаписи после сбоя уже записанные строки повторно не проверяются.
+     */
+    private final Predicate<?> rowFilter;
+
+    /**
+     * Возвращает параметры по умолчанию: перезапись файла без контрольных точек.
+     *
+     * @return параметры по умолчанию
+     */
+    public static ExportOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,95 @@
+package org.writer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Собирает {@link CsvIndex} во время записи: запоминает смещение каждой K-й строки
+ * и обновляет минимум и максимум выбранных колонок.
+ */
+final class IndexBuilder {
+
+    private final int interval;
+    private final int[] rangeColumns;
+    private final List<String> rangeNames;
+    private final Comparable<Object>[] min;
+    private final Comparable<Object>[] max;
+    private long[] offsets = new long[64];
+    private int offsetCount;
+    private long rowCount;
+
+    /**
+     * Создает построитель индекса.
+     *
+     * @param interval шаг индекса
+     * @param rangeColumns номера колонок, для которых собираются минимум и максимум
+     * @param rangeNames имена этих колонок
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    IndexBuilder(int interval, int[] rangeColumns, List<String> rangeNames) {
+        this.interval = interval;
+        this.rangeColumns = rangeColumns;
+        this.rangeNames = rangeNames;
+        this.min = new Comparable[rangeColumns.length];
+        this.max = new Comparable[rangeColumns.length];
+    }
+
+    /**
+     * Учитывает очередную строку. Вызывается после форматирования строки, но до ее записи.
+     *
+     * @param offset смещение начала строки в файле
+     * @param formatter форматирование, только что отформатировавшее строку
+     */
+    void add(long offset, RowFormatter formatter) {
+        if (rowCount % interval == 0) {
+            if (offsetCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsetCount * 2);
+            }
+            offsets[offsetCount++] = offset;
+        }
+        rowCount++;
+
+        for (int i = 0; i < rangeColumns.length; i++) {
+            Object value = formatter.value(rangeColumns[i]);
+            if (value != null) {
+                Comparable<Object> comparable = comparable(value, rangeNames.get(i));
+                if (min[i] == null || comparable.compareTo(min[i]) < 0) {
+                    min[i] = comparable;
+                }
+                if (max[i] == null || comparable.compareTo(max[i]) > 0) {
+                    max[i] = comparable;
+                }
+            }
+        }
+    }
+
+    /**
+     * Записывает собранный индекс в файл.
+     *
+     * @param indexFile путь файла индекса
+     * @param dataEnd смещение конца данных
+     * @throws IOException если произошла ошибка записи
+     */
+    void write(Path indexFile, long dataEnd) throws IOException {
+        Map<String, CsvIndex.ColumnRange> ranges = new LinkedHashMap<>();
+        for (int i = 0; i < rangeColumns.length; i++) {
+            if (min[i] != null) {
+                ranges.put(rangeNames.get(i), new CsvIndex.ColumnRange(min[i].toString(), max[i].toString()));
+            }
+        }
+        new CsvIndex(rowCount, interval, dataEnd, Arrays.copyOf(offsets, offsetCount), ranges).write(indexFile);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value, String column) {
+        if (value instanceof Comparable<?>) {
+            return (Comparable<Object>) value;
+        }
+        throw new IllegalArgumentException("Values of column '" + column + "' are not comparable: "
+                + value.getClass().getName());
+    }
+}
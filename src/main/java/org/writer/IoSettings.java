@@ -0,0 +1,15 @@
+package org.writer;
+
+/**
+ * Параметры ввода-вывода, выбранные для выгрузки.
+ * Передаются в {@link ExportOptions#getIoListener()} после успешного завершения записи.
+ *
+ * @param bufferSize размер буфера вывода в байтах на момент завершения записи; для
+ *                   {@link OutputMode#MEMORY_MAPPED} - заданный размер окна отображения
+ *                   {@link ExportOptions#getMappedWindowSize()}, не больше {@link Integer#MAX_VALUE}
+ * @param flushBatch сколько строк в среднем записывается в канал за один сброс буфера
+ * @param estimatedSize оценка объема вывода в байтах по выборке строк, или -1, если объем заранее неизвестен
+ * @param bytesPerSecond наблюдаемая скорость вывода в байтах в секунду, или 0, если она не измерялась
+ */
+public record IoSettings(int bufferSize, long flushBatch, long estimatedSize, long bytesPerSecond) {
+}
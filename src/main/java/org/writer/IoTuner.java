@@ -0,0 +1,97 @@
+package org.writer;
+
+/**
+ * Подбор размера буфера вывода одной выгрузки.
+ *
+ * <p>Начальный размер берется из оценки объема вывода: маленькая выгрузка получает буфер своего размера
+ * и пишется одним вызовом, большая начинает с {@link #INITIAL_BUFFER_SIZE}. Затем после каждого сброса
+ * буфера измеряется скорость вывода, и буфер подгоняется так, чтобы заполняться примерно за
+ * {@link #TARGET_FLUSH_NANOS}: быстрый вывод получает крупные буферы и меньше системных вызовов,
+ * медленный не держит лишнюю память. Размер всегда остается в границах из параметров выгрузки.
+ */
+final class IoTuner {
+
+    /**
+     * Оценка объема вывода, когда он заранее неизвестен.
+     */
+    static final long UNKNOWN_SIZE = -1;
+
+    /**
+     * Начальный размер буфера для выгрузок, которые в него не помещаются.
+     */
+    static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * За сколько наносекунд должен заполняться буфер при наблюдаемой скорости вывода.
+     */
+    private static final long TARGET_FLUSH_NANOS = 10_000_000L;
+
+    private final int minBufferSize;
+    private final int maxBufferSize;
+    private final long estimatedSize;
+    private double bytesPerSecond;
+
+    /**
+     * @param minBufferSize наименьший допустимый размер буфера
+     * @param maxBufferSize наибольший допустимый размер буфера
+     * @param estimatedSize оценка объема вывода в байтах или {@link #UNKNOWN_SIZE}
+     */
+    IoTuner(int minBufferSize, int maxBufferSize, long estimatedSize) {
+        this.minBufferSize = minBufferSize;
+        this.maxBufferSize = maxBufferSize;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Возвращает размер буфера до начала записи.
+     *
+     * @return размер буфера в байтах
+     */
+    int initialBufferSize() {
+        return clamp(estimatedSize == UNKNOWN_SIZE ? INITIAL_BUFFER_SIZE : Math.min(estimatedSize, INITIAL_BUFFER_SIZE));
+    }
+
+    /**
+     * Учитывает очередной сброс буфера и возвращает размер буфера для следующей порции.
+     * Размер меняется, только если нужный отличается от текущего хотя бы вдвое при росте или вчетверо
+     * при уменьшении, чтобы колебания скорости не приводили к постоянному перевыделению буфера.
+     *
+     * @param bytes сколько байт накопилось с предыдущего сброса
+     * @param nanos сколько времени прошло с предыдущего сброса
+     * @param capacity текущий размер буфера
+     * @return размер буфера для следующей порции
+     */
+    int nextBufferSize(long bytes, long nanos, int capacity) {
+        if (bytes <= 0 || nanos <= 0) {
+            return capacity;
+        }
+        double observed = bytes * 1e9 / nanos;
+        // Сглаживаем замеры, чтобы одна медленная порция (сборка мусора, компиляция) не меняла буфер
+        bytesPerSecond = bytesPerSecond == 0 ? observed : (bytesPerSecond + observed) / 2;
+
+        // Округление до степени двойки гасит мелкие колебания; выгрузке, которая целиком помещается
+        // в буфер, достаточно буфера своего размера
+        long desired = Long.highestOneBit(Math.max(1, (long) (bytesPerSecond * TARGET_FLUSH_NANOS / 1e9)));
+        if (estimatedSize != UNKNOWN_SIZE) {
+            desired = Math.min(desired, estimatedSize);
+        }
+        int size = clamp(desired);
+        return size >= 2L * capacity || size <= capacity / 4 ? size : capacity;
+    }
+
+    /**
+     * Возвращает выбранные параметры для отчета.
+     *
+     * @param bufferSize текущий размер буфера
+     * @param rowWidth средний размер строки в байтах, или 0, если строк не было
+     * @return параметры ввода-вывода
+     */
+    IoSettings settings(int bufferSize, double rowWidth) {
+        long flushBatch = rowWidth > 0 ? Math.max(1, (long) (bufferSize / rowWidth)) : 0;
+        return new IoSettings(bufferSize, flushBatch, estimatedSize, (long) bytesPerSecond);
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minBufferSize, Math.min(maxBufferSize, size));
+    }
+}
@@ -0,0 +1,85 @@
+package org.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writer, кодирующий символы в UTF-8 прямо в отображенную в память область файла, без системных вызовов write.
+ *
+ * <p>Файл заранее расширяется до оценочного размера, затем отображается окнами: когда окно заполняется,
+ * отображается следующее, и файл при необходимости растет. При закрытии файл обрезается до точной длины данных.
+ */
+final class MappedWriter extends ByteBufferWriter {
+
+    private final FileChannel channel;
+    private final long windowSize;
+
+    /**
+     * Создает Writer, пишущий с текущей позиции канала.
+     *
+     * @param channel канал файла, открытый на чтение и запись
+     * @param estimatedSize оценка числа байт, которые будут записаны
+     * @param windowSize размер окна отображения в байтах
+     * @param tuner учет параметров ввода-вывода; размер окна не подбирается
+     * @throws IOException если не удалось расширить или отобразить файл
+     */
+    MappedWriter(FileChannel channel, long estimatedSize, long windowSize, IoTuner tuner) throws IOException {
+        this.channel = channel;
+        this.tuner = tuner;
+        this.windowSize = Math.max(windowSize, 16);
+        this.bufferStart = channel.position();
+
+        // Выделяем место под весь ожидаемый объем сразу, а не по мере роста окон
+        long expectedEnd = bufferStart + estimatedSize;
+        if (estimatedSize > 0 && channel.size() < expectedEnd) {
+            channel.write(ByteBuffer.allocate(1), expectedEnd - 1);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, bufferStart,
+                Math.max(16, Math.min(this.windowSize, estimatedSize)));
+    }
+
+    /**
+     * Переходит к следующему окну. Отображение за концом файла автоматически его расширяет.
+     */
+    @Override
+    void drain() throws IOException {
+        bufferStart += buffer.position();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, bufferStart, windowSize);
+    }
+
+    /**
+     * Сбрасывает текущее окно и синхронизирует файл. Страницы предыдущих окон находятся в том же
+     * страничном кэше файла, поэтому их записывает force канала.
+     */
+    @Override
+    void sync() throws IOException {
+        ((MappedByteBuffer) buffer).force();
+        channel.force(false);
+    }
+
+    /**
+     * Сообщает заданный размер окна: текущее окно может быть меньше, если оно отображено по оценке объема.
+     */
+    @Override
+    IoSettings ioSettings(double rowWidth) {
+        return tuner.settings((int) Math.min(windowSize, Integer.MAX_VALUE), rowWidth);
+    }
+
+    @Override
+    public void flush() {
+        // Данные уже находятся в отображенной области, сбрасывать нечего
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        finishEncoding();
+        // Отбрасываем предварительно выделенный, но не использованный хвост файла
+        channel.truncate(position());
+        channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package org.writer;
+
+/**
+ * Способ вывода закодированных строк в файл.
+ */
+public enum OutputMode {
+
+    /**
+     * Строки накапливаются в буфере и пишутся в файл системными вызовами write.
+     */
+    BUFFERED,
+
+    /**
+     * Строки кодируются прямо в отображенную в память область файла, без системных вызовов write.
+     * Размер файла оценивается по первым строкам и выделяется заранее, а при закрытии файл обрезается
+     * до точной длины. Подходит для больших выгрузок на локальные диски.
+     * Поддерживается только на Linux и macOS: Windows не дает обрезать отображенный файл,
+     * поэтому там выгрузка в этом режиме отклоняется до открытия файла.
+     */
+    MEMORY_MAPPED
+}
@@ -0,0 +1,138 @@
+package org.writer;
+
+import org.writer.dialect.Dialect;
+import org.writer.dialect.RowEncoder;
+
+import java.util.List;
+
+/**
+ * Форматирование строк одной выгрузки: схема колонок, скомпилированный диалектом кодировщик
+ * и переиспользуемые буферы, чтобы на каждую строку не создавались новые массивы и StringBuilder.
+ * Не потокобезопасен, создается на каждую выгрузку.
+ *
+ * <p>Способы получения значений выбираются по классу каждой строки. Два последних встреченных класса
+ * запоминаются в полях, так что для однородного списка выбор сводится к одному сравнению ссылок,
+ * а для списка из двух классов - к двум. Остальные классы ищутся в {@link ClassValue} схемы.
+ */
+final class RowFormatter {
+
+    private final CsvSchema schema;
+    private final List<String> names;
+    private final RowEncoder encoder;
+    private final Object[] values;
+    private final StringBuilder row = new StringBuilder(256);
+
+    private Class<?> primaryType;
+    private ColumnAccessor[] primaryAccessors;
+    private Class<?> secondaryType;
+    private ColumnAccessor[] secondaryAccessors;
+
+    /**
+     * Компилирует диалект для колонок схемы.
+     *
+     * @param schema схема колонок
+     * @param dialect формат вывода
+     */
+    RowFormatter(CsvSchema schema, Dialect dialect) {
+        this.schema = schema;
+        this.names = schema.columns().stream()
+                .map(CsvSchema.Column::name)
+                .toList();
+        this.encoder = dialect.compile(names);
+        this.values = new Object[names.size()];
+    }
+
+    /**
+     * Возвращает номер колонки по имени в заголовке.
+     *
+     * @param name имя колонки
+     * @return номер колонки
+     * @throws IllegalArgumentException если такой колонки нет
+     */
+    int columnIndex(String name) {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown column '" + name + "'");
+        }
+        return index;
+    }
+
+    /**
+     * Возвращает значение колонки объекта без форматирования строки.
+     *
+     * @param obj объект строки
+     * @param column номер колонки
+     * @return значение колонки или null
+     */
+    Object columnValue(Object obj, int column) {
+        return accessorsFor(obj.getClass())[column].get(obj);
+    }
+
+    /**
+     * Возвращает значение колонки последней отформатированной строки.
+     *
+     * @param column номер колонки
+     * @return значение колонки или null
+     */
+    Object value(int column) {
+        return values[column];
+    }
+
+    /**
+     * Возвращает строку заголовка вместе с окончанием строки.
+     *
+     * @return заголовок или пустая строка, если формат не пишет заголовок
+     */
+    String header() {
+        StringBuilder header = new StringBuilder();
+        encoder.encodeHeader(header);
+        return header.toString();
+    }
+
+    /**
+     * Возвращает окончание строки формата.
+     *
+     * @return окончание строки
+     */
+    String lineEnding() {
+        return encoder.lineEnding();
+    }
+
+    /**
+     * Форматирует объект в строку вместе с окончанием строки.
+     * Возвращаемый буфер переиспользуется и действителен только до следующего вызова.
+     *
+     * @param obj объект строки
+     * @return закодированная строка
+     * @throws IllegalArgumentException если класс объекта не подходит к схеме
+     */
+    CharSequence format(Object obj) {
+        ColumnAccessor[] accessors = accessorsFor(obj.getClass());
+        for (int i = 0; i < accessors.length; i++) {
+            values[i] = accessors[i].get(obj);
+        }
+        row.setLength(0);
+        encoder.encodeRow(values, row);
+        return row;
+    }
+
+    private ColumnAccessor[] accessorsFor(Class<?> type) {
+        if (type == primaryType) {
+            return primaryAccessors;
+        }
+        if (type == secondaryType) {
+            return secondaryAccessors;
+        }
+        ColumnAccessor[] accessors = schema.accessorsFor(type);
+        // Занимаем свободное место; при третьем и следующих классах поля не перезаписываются,
+        // чтобы чередование классов в разнородном списке не вытесняло постоянно основной класс
+        if (primaryType == null) {
+            primaryType = type;
+            primaryAccessors = accessors;
+        } else if (secondaryType == null) {
+            secondaryType = type;
+            secondaryAccessors = accessors;
+        }
+        return accessors;
+    }
+}
@@ -0,0 +1,334 @@
+package org.writer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Манифест выгрузки, разделенной на части между несколькими процессами.
+ *
+ * <p>Каждый процесс с параметром {@link ExportOptions#getShard()} пишет свою часть в файл
+ * {@link #partPath(Path, int)} и после успешного завершения кладет рядом отметку о завершении
+ * с числом строк и размерами. Шаг объединения {@link #merge(Path, int, boolean)} проверяет, что все части
+ * завершены и начинаются одинаковым заголовком, и записывает манифест - список частей, которые вместе
+ * составляют один набор данных. По желанию части склеиваются в один файл через
+ * {@link FileChannel#transferTo}, без копирования данных через память процесса.
+ */
+public final class ShardManifest {
+
+    /**
+     * Суффикс, добавляемый к имени файла набора данных.
+     */
+    public static final String SUFFIX = ".manifest";
+
+    /**
+     * Суффикс отметки о завершении, добавляемый к имени файла части.
+     */
+    static final String DONE_SUFFIX = ".done";
+
+    private final int shardCount;
+    private final long headerBytes;
+    private final List<Part> parts;
+    private final Path merged;
+
+    private ShardManifest(int shardCount, long headerBytes, List<Part> parts, Path merged) {
+        this.shardCount = shardCount;
+        this.headerBytes = headerBytes;
+        this.parts = List.copyOf(parts);
+        this.merged = merged;
+    }
+
+    /**
+     * Возвращает путь файла манифеста для набора данных.
+     *
+     * @param dataset путь файла набора данных
+     * @return путь файла манифеста
+     */
+    public static Path pathFor(Path dataset) {
+        return dataset.resolveSibling(dataset.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Возвращает путь файла части, например {@code people.csv.part-00003}.
+     *
+     * @param dataset путь файла набора данных
+     * @param shardId номер части
+     * @return путь файла части
+     */
+    public static Path partPath(Path dataset, int shardId) {
+        return dataset.resolveSibling(dataset.getFileName() + String.format(".part-%05d", shardId));
+    }
+
+    /**
+     * Возвращает путь отметки о завершении части.
+     */
+    static Path completionPath(Path part) {
+        return part.resolveSibling(part.getFileName() + DONE_SUFFIX);
+    }
+
+    /**
+     * Записывает отметку о завершении части. Перед этим файл части сбрасывается на диск, чтобы после сбоя
+     * отметка не указывала на недописанные данные. Отметка сначала пишется во временный файл и затем
+     * переименовывается, так что шаг объединения никогда не видит ее частично записанной.
+     *
+     * @param part путь файла части
+     * @param shard описание части
+     * @param rows число записанных строк
+     * @param headerBytes длина заголовка в байтах
+     * @param bytes размер файла части в байтах
+     * @throws IOException если отметку не удалось записать
+     */
+    static void completePart(Path part, ShardSpec shard, long rows, long headerBytes, long bytes) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("shard", Integer.toString(shard.shardId()));
+        properties.setProperty("shards", Integer.toString(shard.shardCount()));
+        properties.setProperty("key", shard.keyColumn());
+        properties.setProperty("rows", Long.toString(rows));
+        properties.setProperty("headerBytes", Long.toString(headerBytes));
+        properties.setProperty("bytes", Long.toString(bytes));
+
+        // Файл уже закрыт, а запись через отображение в память при закрытии еще и обрезала его,
+        // поэтому на диск сбрасываются и данные, и новый размер
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        store(properties, completionPath(part), "CsvWriter shard completion");
+    }
+
+    /**
+     * Объединяет части набора данных: проверяет, что все части завершены, их заголовки совпадают,
+     * и записывает манифест {@link #pathFor(Path)}.
+     *
+     * @param dataset путь файла набора данных, тот же, что передавался при записи частей
+     * @param shardCount число частей
+     * @param concatenate склеить части в файл dataset: заголовок берется из первой части,
+     *                    из остальных копируются только строки данных
+     * @return манифест набора данных
+     * @throws IllegalArgumentException если число частей не положительно
+     * @throws IllegalStateException если какая-то часть не завершена или не согласуется с остальными
+     * @throws RuntimeException если произошла ошибка чтения или записи файлов
+     */
+    public static ShardManifest merge(Path dataset, int shardCount, boolean concatenate) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+
+        try {
+            Path manifestPath = pathFor(dataset);
+            // Прежний манифест не должен пережить неудачное объединение
+            Files.deleteIfExists(manifestPath);
+
+            List<Part> parts = new ArrayList<>();
+            byte[] header = null;
+            String key = null;
+            for (int id = 0; id < shardCount; id++) {
+                Path part = partPath(dataset, id);
+                Path done = completionPath(part);
+                if (!Files.exists(done)) {
+                    throw new IllegalStateException("Shard " + id + " of " + shardCount + " has not completed: "
+                            + done + " not found");
+                }
+                Properties completion = load(done);
+                if (Integer.parseInt(completion.getProperty("shards")) != shardCount
+                        || Integer.parseInt(completion.getProperty("shard")) != id) {
+                    throw new IllegalStateException("Part " + part + " was written as shard "
+                            + completion.getProperty("shard") + " of " + completion.getProperty("shards"));
+                }
+                long bytes = Long.parseLong(completion.getProperty("bytes"));
+                if (!Files.exists(part) || Files.size(part) != bytes) {
+                    throw new IllegalStateException("Part " + part + " does not match its completion record");
+                }
+
+                byte[] partHeader = readPrefix(part, Integer.parseInt(completion.getProperty("headerBytes")));
+                if (header == null) {
+                    header = partHeader;
+                    key = completion.getProperty("key");
+                } else if (!Arrays.equals(header, partHeader) || !key.equals(completion.getProperty("key"))) {
+                    throw new IllegalStateException("Header or key column of part " + part
+                            + " differs from the first part");
+                }
+                parts.add(new Part(id, part, Long.parseLong(completion.getProperty("rows")), bytes));
+            }
+
+            if (concatenate) {
+                concatenate(dataset, parts, header.length);
+            }
+            ShardManifest manifest = new ShardManifest(shardCount, header.length, parts,
+                    concatenate ? dataset : null);
+            manifest.write(manifestPath);
+            return manifest;
+        } catch (IOException e) {
+            throw new RuntimeException("Error merging shards of " + dataset, e);
+        }
+    }
+
+    /**
+     * Читает манифест набора данных.
+     *
+     * @param manifestFile путь файла манифеста
+     * @return манифест
+     * @throws RuntimeException если файл не удалось прочитать
+     */
+    public static ShardManifest read(Path manifestFile) {
+        try {
+            Properties properties = load(manifestFile);
+            int shardCount = Integer.parseInt(properties.getProperty("shards"));
+            List<Part> parts = new ArrayList<>();
+            for (int id = 0; id < shardCount; id++) {
+                String prefix = "part." + id + ".";
+                parts.add(new Part(id, manifestFile.resolveSibling(properties.getProperty(prefix + "file")),
+                        Long.parseLong(properties.getProperty(prefix + "rows")),
+                        Long.parseLong(properties.getProperty(prefix + "bytes"))));
+            }
+            String merged = properties.getProperty("merged");
+            return new ShardManifest(shardCount, Long.parseLong(properties.getProperty("headerBytes")), parts,
+                    merged == null ? null : manifestFile.resolveSibling(merged));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading manifest: " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Возвращает число частей.
+     *
+     * @return число частей
+     */
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Возвращает длину заголовка в байтах, одинаковую для всех частей.
+     *
+     * @return длина заголовка
+     */
+    public long headerBytes() {
+        return headerBytes;
+    }
+
+    /**
+     * Возвращает общее число строк данных во всех частях.
+     *
+     * @return число строк
+     */
+    public long rowCount() {
+        return parts.stream().mapToLong(Part::rows).sum();
+    }
+
+    /**
+     * Возвращает части в порядке номеров.
+     *
+     * @return неизменяемый список частей
+     */
+    public List<Part> parts() {
+        return parts;
+    }
+
+    /**
+     * Возвращает файл, в который были склеены части.
+     *
+     * @return склеенный файл, или пустое значение, если части не склеивались
+     */
+    public Optional<Path> merged() {
+        return Optional.ofNullable(merged);
+    }
+
+    private void write(Path manifestFile) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("shards", Integer.toString(shardCount));
+        properties.setProperty("headerBytes", Long.toString(headerBytes));
+        properties.setProperty("rows", Long.toString(rowCount()));
+        if (merged != null) {
+            properties.setProperty("merged", merged.getFileName().toString());
+        }
+        for (Part part : parts) {
+            String prefix = "part." + part.shardId() + ".";
+            properties.setProperty(prefix + "file", part.file().getFileName().toString());
+            properties.setProperty(prefix + "rows", Long.toString(part.rows()));
+            properties.setProperty(prefix + "bytes", Long.toString(part.bytes()));
+        }
+        store(properties, manifestFile, "CsvWriter shard manifest");
+    }
+
+    /**
+     * Склеивает части в один файл. Данные передаются между каналами средствами ОС.
+     *
+     * @throws IllegalStateException если часть оказалась короче, чем при проверке
+     */
+    private static void concatenate(Path dataset, List<Part> parts, long headerBytes) throws IOException {
+        // Контрольная точка прежней дозаписи обрезала бы склеенный файл при следующей дозаписи
+        CsvWriter.deleteStaleSidecars(dataset);
+        try (FileChannel out = FileChannel.open(dataset, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Part part : parts) {
+                long position = part.shardId() == 0 ? 0 : headerBytes;
+                try (FileChannel in = FileChannel.open(part.file(), StandardOpenOption.READ)) {
+                    // transferTo может передать меньше запрошенного, поэтому повторяем до конца части
+                    while (position < part.bytes()) {
+                        long transferred = in.transferTo(position, part.bytes() - position, out);
+                        // Ноль байт означает конец файла: часть укоротилась после проверки размера
+                        if (transferred == 0) {
+                            throw new IllegalStateException("Part " + part.file() + " ended at " + position
+                                    + " bytes, expected " + part.bytes());
+                        }
+                        position += transferred;
+                    }
+                }
+            }
+            out.force(false);
+        }
+    }
+
+    private static byte[] readPrefix(Path file, int length) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            int read;
+            while (prefix.hasRemaining() && (read = channel.read(prefix, position)) > 0) {
+                position += read;
+            }
+        }
+        return prefix.array();
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static void store(Properties properties, Path file, String comment) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            properties.store(Channels.newOutputStream(channel), comment);
+            // Без сброса на диск переименование может пережить сбой раньше содержимого файла
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Часть набора данных.
+     *
+     * @param shardId номер части
+     * @param file путь файла части
+     * @param rows число строк данных
+     * @param bytes размер файла в байтах вместе с заголовком
+     */
+    public record Part(int shardId, Path file, long rows, long bytes) {
+    }
+}
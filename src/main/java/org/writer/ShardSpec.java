@@ -0,0 +1,59 @@
+package org.writer;
+
+/**
+ * Описание части выгрузки, разделенной между несколькими процессами.
+ *
+ * <p>Каждый процесс выгружает тот же набор данных с тем же числом частей, но со своим номером части,
+ * и пишет только строки, у которых хэш значения ключевой колонки попадает в его часть. Хэш считается
+ * по текстовому виду значения функцией FNV-1a и не зависит от JVM, поэтому разные процессы
+ * однозначно делят строки между собой. Части объединяются методом {@link ShardManifest#merge}.
+ *
+ * @param shardId номер части, от 0 до shardCount - 1
+ * @param shardCount число частей
+ * @param keyColumn имя ключевой колонки в заголовке
+ */
+public record ShardSpec(int shardId, int shardCount, String keyColumn) {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * @throws IllegalArgumentException если номер части вне диапазона или ключевая колонка не задана
+     */
+    public ShardSpec {
+        if (shardCount <= 0 || shardId < 0 || shardId >= shardCount) {
+            throw new IllegalArgumentException("Shard id must be in [0, " + shardCount + "), got " + shardId);
+        }
+        if (keyColumn == null || keyColumn.isEmpty()) {
+            throw new IllegalArgumentException("Shard key column must be specified");
+        }
+    }
+
+    /**
+     * Возвращает номер части, в которую попадает строка с данным значением ключа.
+     * Значение null попадает в ту же часть, что и пустая строка.
+     *
+     * @param key значение ключевой колонки
+     * @return номер части
+     */
+    public int shardOf(Object key) {
+        String text = key == null ? "" : key.toString();
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // Перемешиваем старшие биты с младшими перед взятием остатка
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shardCount);
+    }
+
+    /**
+     * Проверяет, относится ли строка с данным значением ключа к этой части.
+     *
+     * @param key значение ключевой колонки
+     * @return true, если строку пишет эта часть
+     */
+    public boolean owns(Object key) {
+        return shardOf(key) == shardId;
+    }
+}
@@ -0,0 +1,25 @@
+package org.writer;
+
+/**
+ * Режим открытия выходного файла при записи CSV.
+ */
+public enum WriteMode {
+
+    /**
+     * Файл перезаписывается целиком: заголовок и все строки пишутся заново.
+     * Контрольные точки не ведутся, устаревший файл контрольной точки удаляется.
+     */
+    TRUNCATE,
+
+    /**
+     * Дозапись с возможностью продолжения после сбоя.
+     *
+     * <p>Если файла нет или он пуст, записывается заголовок и все строки. Иначе проверяется первая строка
+     * существующего файла, которая должна совпадать с заголовком, и строки дописываются в конец.
+     * Во время записи периодически сохраняется контрольная точка (число записанных строк и смещение в байтах).
+     * Если запись прервалась, повторный вызов с тем же списком данных обрезает недописанный хвост
+     * до последней контрольной точки и продолжает со следующей строки, не перечитывая уже записанные данные.
+     * После успешного завершения файл контрольной точки удаляется.
+     */
+    APPEND
+}
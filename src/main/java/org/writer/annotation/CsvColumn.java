@@ -7,10 +7,11 @@ import java.lang.annotation.Target;
 
 /**
  * Аннотация для указания полей, которые необходимо сохранить в CSV-файл.
+ * Может стоять на поле, getter-методе без параметров или компоненте record.
  * Поля без аннотаций не будут сохранены.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.FIELD)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.RECORD_COMPONENT})
 public @interface CsvColumn {
 
     /**
@@ -26,4 +27,13 @@ public @interface CsvColumn {
      * @return порядковый номер колонки
      */
     int order() default 0;
+
+    /**
+     * Раскладывать ли значение на колонки вложенного типа вместо вызова toString().
+     * Колонки вложенного типа, аннотированные @CsvColumn, получают префикс из имени этой колонки,
+     * например {@code address.city}. Если вложенный объект равен null, все его колонки пустые.
+     *
+     * @return true, если значение нужно разложить на колонки
+     */
+    boolean flatten() default false;
 }
@@ -0,0 +1,245 @@
+package org.writer.dialect;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Диалект с разделителем: CSV, TSV и их варианты.
+ *
+ * <p>В зависимости от {@link QuoteMode} компилируется в один из специализированных кодировщиков,
+ * так что правило кавычек выбирается один раз на выгрузку, а не для каждой ячейки.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class DelimitedDialect implements Dialect {
+
+    /**
+     * Формат по умолчанию, совпадающий с прежним выводом CsvWriter: запятая, кавычки по необходимости,
+     * системный перевод строки, коллекции через точку с запятой.
+     */
+    public static final DelimitedDialect DEFAULT = builder().build();
+
+    /**
+     * Строгий CSV по RFC 4180: запятая, кавычки по необходимости с удвоением, окончание строки CRLF.
+     */
+    public static final DelimitedDialect RFC4180 = builder().lineEnding("\r\n").build();
+
+    /**
+     * TSV: табуляция без кавычек, спецсимволы экранируются обратной косой чертой, окончание строки LF.
+     */
+    public static final DelimitedDialect TSV = builder()
+            .delimiter("\t")
+            .quoteMode(QuoteMode.NEVER)
+            .escape('\\')
+            .lineEnding("\n")
+            .build();
+
+    /**
+     * Разделитель значений.
+     */
+    @Builder.Default
+    private final String delimiter = ",";
+
+    /**
+     * Символ кавычки.
+     */
+    @Builder.Default
+    private final char quote = '"';
+
+    /**
+     * Символ экранирования. Если совпадает с кавычкой, кавычки внутри значения удваиваются.
+     */
+    @Builder.Default
+    private final char escape = '"';
+
+    /**
+     * Окончание строки.
+     */
+    @Builder.Default
+    private final String lineEnding = System.lineSeparator();
+
+    /**
+     * Правило заключения значений в кавычки.
+     */
+    @Builder.Default
+    private final QuoteMode quoteMode = QuoteMode.MINIMAL;
+
+    /**
+     * Текст, которым выводится null.
+     */
+    @Builder.Default
+    private final String nullToken = "";
+
+    /**
+     * Разделитель элементов коллекций.
+     */
+    @Builder.Default
+    private final String collectionDelimiter = ";";
+
+    @Override
+    public RowEncoder compile(List<String> columns) {
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter cannot be empty");
+        }
+        if (quoteMode == QuoteMode.NEVER && delimiter.length() != 1) {
+            throw new IllegalArgumentException("QuoteMode.NEVER requires a single-character delimiter");
+        }
+
+        return switch (quoteMode) {
+            case ALWAYS -> new AlwaysQuotingEncoder(this, columns);
+            case MINIMAL -> new MinimalQuotingEncoder(this, columns);
+            case NEVER -> new EscapingEncoder(this, columns);
+        };
+    }
+
+    /**
+     * Общая часть кодировщиков: обход значений, разделители, null и коллекции.
+     * Наследники определяют только вывод непустого значения.
+     */
+    private abstract static class DelimitedEncoder implements RowEncoder {
+
+        final String delimiter;
+        final char quote;
+        final char escape;
+        final String lineEnding;
+        final String nullToken;
+        final String collectionDelimiter;
+        final List<String> columns;
+
+        DelimitedEncoder(DelimitedDialect dialect, List<String> columns) {
+            this.delimiter = dialect.delimiter;
+            this.quote = dialect.quote;
+            this.escape = dialect.escape;
+            this.lineEnding = dialect.lineEnding;
+            this.nullToken = dialect.nullToken;
+            this.collectionDelimiter = dialect.collectionDelimiter;
+            this.columns = List.copyOf(columns);
+        }
+
+        @Override
+        public void encodeHeader(StringBuilder out) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.append(delimiter);
+                }
+                appendText(columns.get(i), out);
+            }
+            out.append(lineEnding);
+        }
+
+        @Override
+        public void encodeRow(Object[] values, StringBuilder out) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.append(delimiter);
+                }
+                Object value = values[i];
+                if (value == null) {
+                    out.append(nullToken);
+                } else {
+                    appendText(Values.text(value, collectionDelimiter), out);
+                }
+            }
+            out.append(lineEnding);
+        }
+
+        @Override
+        public String lineEnding() {
+            return lineEnding;
+        }
+
+        /**
+         * Дописывает значение в кавычках, экранируя кавычки и символ экранирования.
+         */
+        void appendQuoted(String text, StringBuilder out) {
+            out.append(quote);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == quote || c == escape) {
+                    out.append(escape);
+                }
+                out.append(c);
+            }
+            out.append(quote);
+        }
+
+        abstract void appendText(String text, StringBuilder out);
+    }
+
+    /**
+     * Кодировщик для {@link QuoteMode#ALWAYS}.
+     */
+    private static final class AlwaysQuotingEncoder extends DelimitedEncoder {
+
+        AlwaysQuotingEncoder(DelimitedDialect dialect, List<String> columns) {
+            super(dialect, columns);
+        }
+
+        @Override
+        void appendText(String text, StringBuilder out) {
+            appendQuoted(text, out);
+        }
+    }
+
+    /**
+     * Кодировщик для {@link QuoteMode#MINIMAL}.
+     */
+    private static final class MinimalQuotingEncoder extends DelimitedEncoder {
+
+        MinimalQuotingEncoder(DelimitedDialect dialect, List<String> columns) {
+            super(dialect, columns);
+        }
+
+        @Override
+        void appendText(String text, StringBuilder out) {
+            if (needsQuoting(text)) {
+                appendQuoted(text, out);
+            } else {
+                out.append(text);
+            }
+        }
+
+        private boolean needsQuoting(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == quote || c == escape || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return text.contains(delimiter);
+        }
+    }
+
+    /**
+     * Кодировщик для {@link QuoteMode#NEVER}: спецсимволы экранируются, кавычки не используются.
+     */
+    private static final class EscapingEncoder extends DelimitedEncoder {
+
+        private final char delimiterChar;
+
+        EscapingEncoder(DelimitedDialect dialect, List<String> columns) {
+            super(dialect, columns);
+            this.delimiterChar = dialect.delimiter.charAt(0);
+        }
+
+        @Override
+        void appendText(String text, StringBuilder out) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    out.append(escape).append('n');
+                } else if (c == '\r') {
+                    out.append(escape).append('r');
+                } else if (c == '\t' && delimiterChar == '\t') {
+                    out.append(escape).append('t');
+                } else if (c == delimiterChar || c == escape) {
+                    out.append(escape).append(c);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.writer.dialect;
+
+import java.util.List;
+
+/**
+ * Формат вывода строк: CSV, TSV, фиксированная ширина, JSON Lines и т.п.
+ *
+ * <p>Диалект один раз на выгрузку компилируется в {@link RowEncoder} для конкретного набора колонок.
+ * Все решения, зависящие от настроек формата, принимаются при компиляции, поэтому кодировщик
+ * не проверяет настройки для каждой ячейки.
+ */
+public interface Dialect {
+
+    /**
+     * Строит кодировщик строк для заданных колонок.
+     *
+     * @param columns имена колонок в порядке вывода
+     * @return кодировщик строк
+     * @throws IllegalArgumentException если настройки диалекта несовместимы с колонками
+     */
+    RowEncoder compile(List<String> columns);
+}
@@ -0,0 +1,180 @@
+package org.writer.dialect;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Диалект с колонками фиксированной ширины.
+ *
+ * <p>Каждое значение дополняется символом заполнения до ширины колонки или обрезается до нее.
+ * Переводы строк внутри значений заменяются пробелами, чтобы не нарушать разметку.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class FixedWidthDialect implements Dialect {
+
+    /**
+     * Ширина колонок по имени. Колонки без явной ширины получают {@link #defaultWidth}.
+     */
+    @Builder.Default
+    private final Map<String, Integer> widths = Map.of();
+
+    /**
+     * Ширина колонок по умолчанию.
+     */
+    @Builder.Default
+    private final int defaultWidth = 16;
+
+    /**
+     * Символ заполнения.
+     */
+    @Builder.Default
+    private final char padding = ' ';
+
+    /**
+     * Выравнивать ли значения по правому краю. По умолчанию значения выравниваются по левому краю.
+     */
+    @Builder.Default
+    private final boolean alignRight = false;
+
+    /**
+     * Окончание строки.
+     */
+    @Builder.Default
+    private final String lineEnding = "\n";
+
+    /**
+     * Текст, которым выводится null.
+     */
+    @Builder.Default
+    private final String nullToken = "";
+
+    /**
+     * Разделитель элементов коллекций.
+     */
+    @Builder.Default
+    private final String collectionDelimiter = ";";
+
+    @Override
+    public RowEncoder compile(List<String> columns) {
+        for (String name : widths.keySet()) {
+            if (!columns.contains(name)) {
+                throw new IllegalArgumentException("Width is set for unknown column '" + name + "'");
+            }
+        }
+
+        int[] columnWidths = new int[columns.size()];
+        for (int i = 0; i < columnWidths.length; i++) {
+            columnWidths[i] = widths.getOrDefault(columns.get(i), defaultWidth);
+            if (columnWidths[i] <= 0) {
+                throw new IllegalArgumentException("Width of column '" + columns.get(i) + "' must be positive");
+            }
+        }
+        return alignRight
+                ? new RightAlignedEncoder(this, columns, columnWidths)
+                : new LeftAlignedEncoder(this, columns, columnWidths);
+    }
+
+    /**
+     * Общая часть кодировщиков: обход значений, обрезка и замена переводов строк.
+     */
+    private abstract static class FixedWidthEncoder implements RowEncoder {
+
+        final char padding;
+        private final String lineEnding;
+        private final String nullToken;
+        private final String collectionDelimiter;
+        private final List<String> columns;
+        private final int[] widths;
+
+        FixedWidthEncoder(FixedWidthDialect dialect, List<String> columns, int[] widths) {
+            this.padding = dialect.padding;
+            this.lineEnding = dialect.lineEnding;
+            this.nullToken = dialect.nullToken;
+            this.collectionDelimiter = dialect.collectionDelimiter;
+            this.columns = List.copyOf(columns);
+            this.widths = widths;
+        }
+
+        @Override
+        public void encodeHeader(StringBuilder out) {
+            for (int i = 0; i < widths.length; i++) {
+                appendCell(columns.get(i), widths[i], out);
+            }
+            out.append(lineEnding);
+        }
+
+        @Override
+        public void encodeRow(Object[] values, StringBuilder out) {
+            for (int i = 0; i < widths.length; i++) {
+                Object value = values[i];
+                String text = value == null ? nullToken : Values.text(value, collectionDelimiter);
+                appendCell(text, widths[i], out);
+            }
+            out.append(lineEnding);
+        }
+
+        @Override
+        public String lineEnding() {
+            return lineEnding;
+        }
+
+        private void appendCell(String text, int width, StringBuilder out) {
+            int length = Math.min(text.length(), width);
+            // Обрезка посреди суррогатной пары оставила бы половину символа, которая не кодируется в UTF-8
+            if (length < text.length() && length > 0 && Character.isHighSurrogate(text.charAt(length - 1))) {
+                length--;
+            }
+            if (text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                text = text.replace('\n', ' ').replace('\r', ' ');
+            }
+            appendPadded(text, length, width - length, out);
+        }
+
+        /**
+         * Дописывает первые length символов текста и padding символов заполнения.
+         */
+        abstract void appendPadded(String text, int length, int padding, StringBuilder out);
+
+        void appendPadding(int count, StringBuilder out) {
+            for (int i = 0; i < count; i++) {
+                out.append(padding);
+            }
+        }
+    }
+
+    /**
+     * Кодировщик с выравниванием по левому краю.
+     */
+    private static final class LeftAlignedEncoder extends FixedWidthEncoder {
+
+        LeftAlignedEncoder(FixedWidthDialect dialect, List<String> columns, int[] widths) {
+            super(dialect, columns, widths);
+        }
+
+        @Override
+        void appendPadded(String text, int length, int padding, StringBuilder out) {
+            out.append(text, 0, length);
+            appendPadding(padding, out);
+        }
+    }
+
+    /**
+     * Кодировщик с выравниванием по правому краю.
+     */
+    private static final class RightAlignedEncoder extends FixedWidthEncoder {
+
+        RightAlignedEncoder(FixedWidthDialect dialect, List<String> columns, int[] widths) {
+            super(dialect, columns, widths);
+        }
+
+        @Override
+        void appendPadded(String text, int length, int padding, StringBuilder out) {
+            appendPadding(padding, out);
+            out.append(text, 0, length);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.writer.dialect;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Диалект JSON Lines: каждая строка данных - отдельный JSON объект, заголовок не пишется.
+ *
+ * <p>Числа и логические значения выводятся как литералы JSON, коллекции - как массивы, null - как null,
+ * остальные значения - как строки. Ключи объектов экранируются один раз при компиляции.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class JsonLinesDialect implements Dialect {
+
+    /**
+     * JSON Lines с окончанием строки LF.
+     */
+    public static final JsonLinesDialect DEFAULT = builder().build();
+
+    /**
+     * Окончание строки.
+     */
+    @Builder.Default
+    private final String lineEnding = "\n";
+
+    @Override
+    public RowEncoder compile(List<String> columns) {
+        String[] prefixes = new String[columns.size()];
+        for (int i = 0; i < prefixes.length; i++) {
+            StringBuilder prefix = new StringBuilder(i == 0 ? "{" : ",");
+            appendString(columns.get(i), prefix);
+            prefixes[i] = prefix.append(':').toString();
+        }
+        return new JsonLinesEncoder(prefixes, lineEnding);
+    }
+
+    /**
+     * Дописывает строку JSON в кавычках с экранированием.
+     */
+    private static void appendString(String text, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Дописывает значение как литерал, массив или строку JSON.
+     */
+    private static void appendValue(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isFinite(number)) {
+                out.append(value);
+            } else {
+                // NaN и бесконечности в JSON не представимы числом
+                appendString(value.toString(), out);
+            }
+        } else if (value instanceof Number) {
+            out.append(value);
+        } else if (value instanceof Collection<?> collection) {
+            out.append('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    out.append(',');
+                }
+                appendValue(element, out);
+                first = false;
+            }
+            out.append(']');
+        } else {
+            appendString(value.toString(), out);
+        }
+    }
+
+    /**
+     * Кодировщик JSON Lines с заранее подготовленными ключами.
+     */
+    private static final class JsonLinesEncoder implements RowEncoder {
+
+        private final String[] prefixes;
+        private final String lineEnding;
+
+        JsonLinesEncoder(String[] prefixes, String lineEnding) {
+            this.prefixes = prefixes;
+            this.lineEnding = lineEnding;
+        }
+
+        @Override
+        public void encodeHeader(StringBuilder out) {
+            // В JSON Lines имена колонок содержатся в каждой строке
+        }
+
+        @Override
+        public void encodeRow(Object[] values, StringBuilder out) {
+            for (int i = 0; i < prefixes.length; i++) {
+                out.append(prefixes[i]);
+                appendValue(values[i], out);
+            }
+            out.append('}').append(lineEnding);
+        }
+
+        @Override
+        public String lineEnding() {
+            return lineEnding;
+        }
+    }
+}
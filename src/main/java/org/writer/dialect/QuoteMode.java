@@ -0,0 +1,23 @@
+package org.writer.dialect;
+
+/**
+ * Правило заключения значений в кавычки для {@link DelimitedDialect}.
+ */
+public enum QuoteMode {
+
+    /**
+     * Любое значение, кроме null, заключается в кавычки.
+     */
+    ALWAYS,
+
+    /**
+     * В кавычки заключаются только значения с разделителем, кавычкой или переводом строки.
+     */
+    MINIMAL,
+
+    /**
+     * Кавычки не используются: разделитель, переводы строк и сам символ экранирования
+     * экранируются символом экранирования ({@code \t}, {@code \n}, {@code \r}, {@code \\}).
+     */
+    NEVER
+}
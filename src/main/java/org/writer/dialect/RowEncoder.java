@@ -0,0 +1,29 @@
+package org.writer.dialect;
+
+/**
+ * Кодировщик строк, построенный диалектом для конкретного набора колонок.
+ */
+public interface RowEncoder {
+
+    /**
+     * Дописывает строку заголовка вместе с окончанием строки. Форматы без заголовка ничего не дописывают.
+     *
+     * @param out буфер для вывода
+     */
+    void encodeHeader(StringBuilder out);
+
+    /**
+     * Дописывает строку данных вместе с окончанием строки.
+     *
+     * @param values значения колонок в порядке, переданном при компиляции; элементы могут быть null
+     * @param out буфер для вывода
+     */
+    void encodeRow(Object[] values, StringBuilder out);
+
+    /**
+     * Возвращает окончание строки, которым завершается каждая запись.
+     *
+     * @return окончание строки
+     */
+    String lineEnding();
+}
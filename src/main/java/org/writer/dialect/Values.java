@@ -0,0 +1,35 @@
+package org.writer.dialect;
+
+import java.util.Collection;
+
+/**
+ * Общие правила преобразования значений колонок в текст.
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    /**
+     * Преобразует значение в текст. Элементы коллекций объединяются через разделитель.
+     *
+     * @param value значение, не null
+     * @param collectionDelimiter разделитель элементов коллекции
+     * @return текстовое представление
+     */
+    static String text(Object value, String collectionDelimiter) {
+        if (value instanceof Collection<?> collection) {
+            StringBuilder joined = new StringBuilder();
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    joined.append(collectionDelimiter);
+                }
+                joined.append(element);
+                first = false;
+            }
+            return joined.toString();
+        }
+        return value.toString();
+    }
+}
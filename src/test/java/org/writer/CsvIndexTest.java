@@ -0,0 +1,183 @@
+package org.writer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.writer.model.Months;
+import org.writer.model.Person;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты индекса смещений строк {@link CsvIndex}.
+ */
+class CsvIndexTest {
+
+    private CsvWriter csvWriter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        csvWriter = new CsvWriter();
+    }
+
+    /**
+     * Проверяет переход к строке по индексу, когда значения содержат переводы строк внутри кавычек.
+     */
+    @Test
+    void testSeekWithEmbeddedNewlines() throws IOException {
+        List<Person> people = createPeople(1000);
+        Path outputFile = tempDir.resolve("people.csv");
+
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder().indexInterval(100).build());
+
+        CsvIndex index = CsvIndex.read(CsvIndex.pathFor(outputFile));
+        assertEquals(1000, index.rowCount());
+        assertEquals(100, index.interval());
+        assertEquals(Files.size(outputFile), index.dataEnd());
+
+        byte[] content = Files.readAllBytes(outputFile);
+        CsvIndex.RowPosition position = index.seek(700);
+        assertEquals(0, position.rowsToSkip());
+        assertTrue(textAt(content, position.offset()).startsWith("Name700,\"Surname\n700\","));
+
+        CsvIndex.RowPosition between = index.seek(745);
+        assertEquals(45, between.rowsToSkip());
+        assertEquals(index.seek(700).offset(), between.offset());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> index.seek(1000));
+    }
+
+    /**
+     * Проверяет деление файла на части по границам записей.
+     */
+    @Test
+    void testSplitsCoverAllRows() throws IOException {
+        Path outputFile = tempDir.resolve("splits.csv");
+
+        csvWriter.writeToFile(createPeople(1050), outputFile.toString(),
+                ExportOptions.builder().indexInterval(100).build());
+
+        CsvIndex index = CsvIndex.read(CsvIndex.pathFor(outputFile));
+        List<CsvIndex.Split> splits = index.splits(4);
+        byte[] content = Files.readAllBytes(outputFile);
+
+        assertEquals(4, splits.size());
+        assertEquals(index.dataStart(), splits.get(0).startOffset());
+        assertEquals(index.dataEnd(), splits.get(splits.size() - 1).endOffset());
+        long rows = 0;
+        for (int i = 0; i < splits.size(); i++) {
+            CsvIndex.Split split = splits.get(i);
+            if (i > 0) {
+                assertEquals(splits.get(i - 1).endOffset(), split.startOffset());
+            }
+            assertEquals(rows, split.firstRow());
+            assertTrue(textAt(content, split.startOffset()).startsWith("Name" + split.firstRow() + ","));
+            rows += split.rowCount();
+        }
+        assertEquals(1050, rows);
+    }
+
+    /**
+     * Проверяет минимальные и максимальные значения выбранных колонок.
+     */
+    @Test
+    void testColumnRanges() throws IOException {
+        Path outputFile = tempDir.resolve("ranges.csv");
+
+        csvWriter.writeToFile(createPeople(50), outputFile.toString(), ExportOptions.builder()
+                .indexInterval(10)
+                .indexedColumns(Set.of("Year", "Month"))
+                .build());
+
+        CsvIndex index = CsvIndex.read(CsvIndex.pathFor(outputFile));
+        assertEquals(new CsvIndex.ColumnRange("1970", "2019"), index.range("Year").orElseThrow());
+        assertEquals(new CsvIndex.ColumnRange("JANUARY", "DECEMBER"), index.range("Month").orElseThrow());
+        assertFalse(index.range("Day").isPresent());
+    }
+
+    /**
+     * Проверяет индекс при записи через отображение в память и при потоковой записи.
+     */
+    @Test
+    void testIndexForMappedAndStreamedOutput() throws Exception {
+        List<Person> people = createPeople(300);
+        Path bufferedFile = tempDir.resolve("buffered.csv");
+        Path mappedFile = tempDir.resolve("mapped.csv");
+        Path streamedFile = tempDir.resolve("streamed.csv");
+
+        csvWriter.writeToFile(people, bufferedFile.toString(), ExportOptions.builder().indexInterval(7).build());
+        csvWriter.writeToFile(people, mappedFile.toString(), ExportOptions.builder()
+                .indexInterval(7)
+                .output(OutputMode.MEMORY_MAPPED)
+                .build());
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class, streamedFile.toString(),
+                ExportOptions.builder().indexInterval(7).build());
+        try (SubmissionPublisher<Person> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(subscriber);
+            people.forEach(publisher::submit);
+        }
+        subscriber.result().get(10, TimeUnit.SECONDS);
+
+        CsvIndex expected = CsvIndex.read(CsvIndex.pathFor(bufferedFile));
+        for (Path file : List.of(mappedFile, streamedFile)) {
+            CsvIndex actual = CsvIndex.read(CsvIndex.pathFor(file));
+            assertEquals(expected.rowCount(), actual.rowCount());
+            assertEquals(expected.dataEnd(), actual.dataEnd());
+            assertEquals(expected.seek(299), actual.seek(299));
+        }
+    }
+
+    /**
+     * Проверяет, что перезапись без индекса удаляет устаревший индекс, а дозапись с индексом запрещена.
+     */
+    @Test
+    void testStaleIndexIsRemoved() {
+        Path outputFile = tempDir.resolve("stale.csv");
+        csvWriter.writeToFile(createPeople(10), outputFile.toString(), ExportOptions.builder().indexInterval(5).build());
+        assertTrue(Files.exists(CsvIndex.pathFor(outputFile)));
+
+        csvWriter.writeToFile(createPeople(3), outputFile.toString());
+        assertFalse(Files.exists(CsvIndex.pathFor(outputFile)));
+
+        ExportOptions appendWithIndex = ExportOptions.builder().mode(WriteMode.APPEND).indexInterval(5).build();
+        assertThrows(IllegalArgumentException.class,
+                () -> csvWriter.writeToFile(createPeople(3), outputFile.toString(), appendWithIndex));
+    }
+
+    private static String textAt(byte[] content, long offset) {
+        return new String(Arrays.copyOfRange(content, (int) offset, Math.min(content.length, (int) offset + 64)),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Создает людей с переводом строки в фамилии, чтобы построчный просмотр файла давал неверные границы записей.
+     */
+    private List<Person> createPeople(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Person.builder()
+                        .firstName("Name" + i)
+                        .lastName("Surname\n" + i)
+                        .dayOfBirth(i % 28 + 1)
+                        .monthOfBirth(Months.values()[i % 12])
+                        .yearOfBirth(1970 + i % 50)
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,237 @@
+package org.writer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.writer.model.Months;
+import org.writer.model.Person;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты потоковой записи через {@link CsvSubscriber}.
+ */
+class CsvSubscriberTest {
+
+    private CsvWriter csvWriter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        csvWriter = new CsvWriter();
+    }
+
+    /**
+     * Проверяет, что потоковая запись дает тот же файл, что и запись списка.
+     */
+    @Test
+    void testStreamedOutputMatchesListOutput() throws Exception {
+        List<Person> people = createPeople(1000);
+        Path expectedFile = tempDir.resolve("expected.csv");
+        Path streamedFile = tempDir.resolve("streamed.csv");
+        csvWriter.writeToFile(people, expectedFile.toString());
+
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class, streamedFile.toString(),
+                ExportOptions.defaults());
+        try (SubmissionPublisher<Person> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(subscriber);
+            people.forEach(publisher::submit);
+        }
+
+        assertEquals(1000L, subscriber.result().get(10, TimeUnit.SECONDS));
+        assertEquals(Files.readString(expectedFile), Files.readString(streamedFile));
+    }
+
+    /**
+     * Проверяет отчет о параметрах ввода-вывода потоковой записи: объем потока заранее неизвестен.
+     */
+    @Test
+    void testIoSettingsReportedOnCompletion() throws Exception {
+        List<IoSettings> reported = new ArrayList<>();
+        ListPublisher<Person> publisher = new ListPublisher<>(createPeople(100));
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class,
+                tempDir.resolve("settings.csv").toString(), ExportOptions.builder().ioListener(reported::add).build());
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(100L, subscriber.result().get(10, TimeUnit.SECONDS));
+        assertEquals(1, reported.size());
+        assertEquals(IoTuner.UNKNOWN_SIZE, reported.get(0).estimatedSize());
+        assertEquals(IoTuner.INITIAL_BUFFER_SIZE, reported.get(0).bufferSize());
+    }
+
+    /**
+     * Проверяет, что объекты запрашиваются заданными партиями и издатель не опережает запись.
+     */
+    @Test
+    void testRequestsConfiguredBatches() throws Exception {
+        ListPublisher<Person> publisher = new ListPublisher<>(createPeople(25));
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class,
+                tempDir.resolve("batches.csv").toString(), ExportOptions.builder().batchSize(10).build());
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(25L, subscriber.result().get(10, TimeUnit.SECONDS));
+        assertEquals(List.of(10L, 10L, 10L), publisher.requests);
+        assertEquals(10L, publisher.maxDemand);
+    }
+
+    /**
+     * Проверяет автоматический размер партии: первая партия - выборка, следующие заполняют буфер вывода.
+     */
+    @Test
+    void testAutomaticBatchSizeMatchesBufferCapacity() throws Exception {
+        ListPublisher<Person> publisher = new ListPublisher<>(createPeople(2000));
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class,
+                tempDir.resolve("auto.csv").toString(), ExportOptions.builder()
+                        .sampleSize(16)
+                        .minBufferSize(8192)
+                        .maxBufferSize(8192)
+                        .build());
+
+        publisher.subscribe(subscriber);
+
+        assertEquals(2000L, subscriber.result().get(10, TimeUnit.SECONDS));
+        assertEquals(16L, publisher.requests.get(0));
+        // Строка занимает около 35 байт, в буфер постоянного размера 8192 байт помещается больше двухсот строк
+        long secondBatch = publisher.requests.get(1);
+        assertTrue(secondBatch > 100 && secondBatch < 400, "Размер партии: " + secondBatch);
+    }
+
+    /**
+     * Проверяет, что ошибка издателя передается в результат.
+     */
+    @Test
+    void testPublisherErrorCompletesResultExceptionally() {
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class,
+                tempDir.resolve("error.csv").toString(), ExportOptions.defaults());
+
+        SubmissionPublisher<Person> publisher = new SubmissionPublisher<>();
+        publisher.subscribe(subscriber);
+        publisher.submit(createPeople(1).get(0));
+        publisher.closeExceptionally(new IllegalStateException("source failed"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> subscriber.result().get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    /**
+     * Проверяет, что ошибка при форматировании строки отменяет подписку.
+     */
+    @Test
+    void testWriteErrorCancelsSubscription() {
+        List<Person> people = new ArrayList<>(createPeople(5));
+        people.set(2, null);
+        ListPublisher<Person> publisher = new ListPublisher<>(people);
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class,
+                tempDir.resolve("cancel.csv").toString(), ExportOptions.defaults());
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(publisher.cancelled);
+        assertTrue(subscriber.result().isCompletedExceptionally());
+        assertFalse(publisher.completed);
+    }
+
+    /**
+     * Проверяет, что режим дозаписи для потока не поддерживается.
+     */
+    @Test
+    void testAppendModeIsRejected() {
+        ExportOptions append = ExportOptions.builder().mode(WriteMode.APPEND).build();
+        String fileName = tempDir.resolve("append.csv").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.subscriber(Person.class, fileName, append));
+    }
+
+    /**
+     * Проверяет, что объединение колонок для потока не поддерживается, а не игнорируется молча.
+     */
+    @Test
+    void testUnionColumnsAreRejected() {
+        ExportOptions union = ExportOptions.builder().unionColumns(true).build();
+        String fileName = tempDir.resolve("union.csv").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.subscriber(Person.class, fileName, union));
+    }
+
+    private List<Person> createPeople(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Person.builder()
+                        .firstName("Name" + i)
+                        .lastName("Surname" + i)
+                        .dayOfBirth(i % 28 + 1)
+                        .monthOfBirth(Months.values()[i % 12])
+                        .yearOfBirth(1970 + i % 30)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Синхронный издатель списка, запоминающий запросы подписчика.
+     * Повторные запросы из onNext не углубляют стек, а продолжают текущий цикл выдачи.
+     */
+    private static final class ListPublisher<T> implements Flow.Publisher<T> {
+
+        private final List<T> items;
+        private final List<Long> requests = new ArrayList<>();
+        private long maxDemand;
+        private boolean cancelled;
+        private boolean completed;
+
+        ListPublisher(List<T> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super T> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private long demand;
+                private int next;
+                private boolean emitting;
+
+                @Override
+                public void request(long n) {
+                    requests.add(n);
+                    demand += n;
+                    maxDemand = Math.max(maxDemand, demand);
+                    if (emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while (demand > 0 && next < items.size() && !cancelled) {
+                        demand--;
+                        subscriber.onNext(items.get(next++));
+                    }
+                    emitting = false;
+                    if (next == items.size() && !cancelled && !completed) {
+                        completed = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+}
@@ -4,6 +4,11 @@ import net.datafaker.Faker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.writer.annotation.CsvColumn;
+import org.writer.dialect.DelimitedDialect;
+import org.writer.dialect.FixedWidthDialect;
+import org.writer.dialect.JsonLinesDialect;
+import org.writer.dialect.QuoteMode;
 import org.writer.model.Months;
 import org.writer.model.Person;
 import org.writer.model.Student;
@@ -11,13 +16,24 @@ import org.writer.model.Student;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -325,6 +341,817 @@ class CsvWriterTest {
         assertTrue(dataRow.contains("\"John \"\"Johnny\"\"\""));
     }
 
+    // ============================================
+    // Тесты дозаписи и продолжения после сбоя
+    // ============================================
+
+    /**
+     * Проверяет дозапись строк в существующий файл без повторного заголовка.
+     */
+    @Test
+    void testAppendToExistingFile() throws IOException {
+        List<Person> people = createPeople(5);
+        Path outputFile = tempDir.resolve("append.csv");
+
+        csvWriter.writeToFile(people.subList(0, 2), outputFile.toString());
+        csvWriter.writeToFile(people.subList(2, 5), outputFile.toString(),
+                ExportOptions.builder().mode(WriteMode.APPEND).build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals(6, lines.size());
+        assertEquals("First Name,Last Name,Day,Month,Year", lines.get(0));
+        assertEquals("Name4,Surname4,5,MAY,1994", lines.get(5));
+
+        // После успешной записи файл контрольной точки удаляется
+        assertFalse(Files.exists(tempDir.resolve("append.csv.ckpt")));
+    }
+
+    /**
+     * Проверяет, что дозапись в файл с другим заголовком запрещена.
+     */
+    @Test
+    void testAppendWithMismatchedHeaderThrowsException() {
+        Path outputFile = tempDir.resolve("mismatch.csv");
+        csvWriter.writeToFile(createPeople(2), outputFile.toString());
+
+        List<Student> students = Collections.singletonList(
+                Student.builder().name("Alice").score(List.of("90")).build());
+        ExportOptions append = ExportOptions.builder().mode(WriteMode.APPEND).build();
+
+        assertThrows(IllegalStateException.class, () -> csvWriter.writeToFile(students, outputFile.toString(), append));
+    }
+
+    /**
+     * Проверяет продолжение прерванной записи: недописанный хвост обрезается до контрольной точки,
+     * а строки после нее дописываются без повторов.
+     */
+    @Test
+    void testResumeAfterCrashFromCheckpoint() throws IOException {
+        List<Person> people = createPeople(10);
+        Path outputFile = tempDir.resolve("resume.csv");
+        Path expectedFile = tempDir.resolve("expected.csv");
+        csvWriter.writeToFile(people, expectedFile.toString());
+
+        ExportOptions append = ExportOptions.builder()
+                .mode(WriteMode.APPEND)
+                .checkpointInterval(3)
+                .build();
+
+        // Список, который "падает" на восьмой строке, имитирует сбой посреди выгрузки
+        List<Person> failing = new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                if (index == 7) {
+                    throw new IllegalStateException("crash");
+                }
+                return people.get(index);
+            }
+
+            @Override
+            public int size() {
+                return people.size();
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> csvWriter.writeToFile(failing, outputFile.toString(), append));
+        assertTrue(Files.exists(tempDir.resolve("resume.csv.ckpt")));
+
+        // Недописанная строка в конце файла
+        Files.writeString(outputFile, "Name6,Surn", StandardOpenOption.APPEND);
+
+        csvWriter.writeToFile(people, outputFile.toString(), append);
+
+        assertEquals(Files.readString(expectedFile), Files.readString(outputFile));
+        assertFalse(Files.exists(tempDir.resolve("resume.csv.ckpt")));
+    }
+
+    /**
+     * Проверяет, что файл без контрольной точки с оборванной последней строкой не дописывается.
+     */
+    @Test
+    void testAppendToFileWithIncompleteRowThrowsException() throws IOException {
+        Path outputFile = tempDir.resolve("incomplete.csv");
+        csvWriter.writeToFile(createPeople(2), outputFile.toString());
+        Files.writeString(outputFile, "Name2,Sur", StandardOpenOption.APPEND);
+
+        ExportOptions append = ExportOptions.builder().mode(WriteMode.APPEND).build();
+
+        assertThrows(IllegalStateException.class,
+                () -> csvWriter.writeToFile(createPeople(1), outputFile.toString(), append));
+    }
+
+    // ============================================
+    // Тесты вывода через отображение файла в память
+    // ============================================
+
+    /**
+     * Проверяет, что вывод через отображение в память совпадает с буферизованным,
+     * в том числе когда оценка размера занижена и окно приходится переотображать много раз.
+     */
+    @Test
+    void testMemoryMappedOutputMatchesBuffered() throws IOException {
+        List<Person> people = new ArrayList<>(createPeople(500));
+        people.add(Person.builder()
+                .firstName("Иван")
+                .lastName("Смирнов, 😀")
+                .dayOfBirth(1)
+                .monthOfBirth(Months.MAY)
+                .yearOfBirth(1990)
+                .build());
+
+        Path bufferedFile = tempDir.resolve("buffered.csv");
+        Path mappedFile = tempDir.resolve("mapped.csv");
+
+        csvWriter.writeToFile(people, bufferedFile.toString());
+        csvWriter.writeToFile(people, mappedFile.toString(), ExportOptions.builder()
+                .output(OutputMode.MEMORY_MAPPED)
+                .sampleSize(1)
+                .mappedWindowSize(1024)
+                .build());
+
+        // Файл обрезан до точной длины, без предварительно выделенного хвоста
+        assertEquals(Files.size(bufferedFile), Files.size(mappedFile));
+        assertEquals(Files.readString(bufferedFile), Files.readString(mappedFile));
+    }
+
+    /**
+     * Проверяет дозапись в режиме отображения в память.
+     */
+    @Test
+    void testMemoryMappedAppend() throws IOException {
+        List<Person> people = createPeople(20);
+        Path expectedFile = tempDir.resolve("expected.csv");
+        Path mappedFile = tempDir.resolve("mapped_append.csv");
+        csvWriter.writeToFile(people, expectedFile.toString());
+
+        ExportOptions options = ExportOptions.builder()
+                .mode(WriteMode.APPEND)
+                .output(OutputMode.MEMORY_MAPPED)
+                .checkpointInterval(4)
+                .build();
+        csvWriter.writeToFile(people.subList(0, 10), mappedFile.toString(), options);
+        csvWriter.writeToFile(people.subList(10, 20), mappedFile.toString(), options);
+
+        assertEquals(Files.readString(expectedFile), Files.readString(mappedFile));
+    }
+
+    /**
+     * Проверяет, что для отображения в память сообщается заданный размер окна,
+     * даже если первое окно отображено по меньшей оценке объема.
+     */
+    @Test
+    void testMemoryMappedReportsConfiguredWindow() throws IOException {
+        List<IoSettings> reported = new ArrayList<>();
+        Path outputFile = tempDir.resolve("mapped_window.csv");
+
+        csvWriter.writeToFile(createPeople(3), outputFile.toString(), ExportOptions.builder()
+                .output(OutputMode.MEMORY_MAPPED)
+                .mappedWindowSize(1 << 20)
+                .ioListener(reported::add)
+                .build());
+
+        assertEquals(1 << 20, reported.get(0).bufferSize());
+        assertTrue(reported.get(0).estimatedSize() < 1024);
+    }
+
+    /**
+     * Проверяет возобновление дозаписи через отображение в память после сбоя, случившегося,
+     * когда файл уже расширен нулями, а первая строка еще не записана.
+     */
+    @Test
+    void testMemoryMappedAppendResumesAfterPreallocation() throws IOException {
+        List<Person> people = createPeople(20);
+        Path expectedFile = tempDir.resolve("expected.csv");
+        csvWriter.writeToFile(people, expectedFile.toString());
+
+        ExportOptions options = ExportOptions.builder()
+                .mode(WriteMode.APPEND)
+                .output(OutputMode.MEMORY_MAPPED)
+                .build();
+
+        // Новый файл: сохранена только начальная точка, дальше одни нули
+        Path newFile = tempDir.resolve("mapped_new.csv");
+        try (CheckpointFile checkpoints = CheckpointFile.open(CheckpointFile.pathFor(newFile))) {
+            checkpoints.write(0, 0);
+        }
+        Files.write(newFile, new byte[4096]);
+
+        csvWriter.writeToFile(people, newFile.toString(), options);
+        assertEquals(Files.readString(expectedFile), Files.readString(newFile));
+
+        // Существующий файл: точка стоит на конце прежних строк, за ней нули
+        Path existingFile = tempDir.resolve("mapped_existing.csv");
+        csvWriter.writeToFile(people.subList(0, 10), existingFile.toString());
+        try (CheckpointFile checkpoints = CheckpointFile.open(CheckpointFile.pathFor(existingFile))) {
+            checkpoints.write(0, Files.size(existingFile));
+        }
+        Files.write(existingFile, new byte[4096], StandardOpenOption.APPEND);
+
+        csvWriter.writeToFile(people.subList(10, 20), existingFile.toString(), options);
+        assertEquals(Files.readString(expectedFile), Files.readString(existingFile));
+        assertFalse(Files.exists(CheckpointFile.pathFor(existingFile)));
+    }
+
+    /**
+     * Сравнивает скорость записи через отображение в память и через буферизованный вывод.
+     */
+    @Test
+    void testMemoryMappedPerformanceAgainstBuffered() throws IOException {
+        List<Person> people = createPeople(200_000);
+        Path bufferedFile = tempDir.resolve("bench_buffered.csv");
+        Path mappedFile = tempDir.resolve("bench_mapped.csv");
+        ExportOptions mapped = ExportOptions.builder().output(OutputMode.MEMORY_MAPPED).build();
+
+        // Прогрев, чтобы сравнивать уже скомпилированный код
+        csvWriter.writeToFile(people, bufferedFile.toString());
+        csvWriter.writeToFile(people, mappedFile.toString(), mapped);
+
+        long bufferedStart = System.nanoTime();
+        csvWriter.writeToFile(people, bufferedFile.toString());
+        long bufferedMillis = (System.nanoTime() - bufferedStart) / 1_000_000;
+
+        long mappedStart = System.nanoTime();
+        csvWriter.writeToFile(people, mappedFile.toString(), mapped);
+        long mappedMillis = (System.nanoTime() - mappedStart) / 1_000_000;
+
+        assertEquals(Files.size(bufferedFile), Files.size(mappedFile));
+        System.out.println("Тест производительности: 200000 записей, BufferedWriter-путь " + bufferedMillis
+                + "мс, MappedByteBuffer " + mappedMillis + "мс");
+    }
+
+    // ============================================
+    // Тесты record, getter-методов и вложенных объектов
+    // ============================================
+
+    /**
+     * Проверяет запись record с аннотированными компонентами и раскладку вложенных объектов на колонки с префиксом.
+     */
+    @Test
+    void testRecordWithFlattenedNestedObject() throws IOException {
+        List<Employee> employees = Arrays.asList(
+                new Employee("Alice", new Address("Moscow", "101000")),
+                new Employee("Bob", null)
+        );
+
+        Path outputFile = tempDir.resolve("employees.csv");
+
+        csvWriter.writeToFile(employees, outputFile.toString());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Name,address.City,address.Zip", lines.get(0));
+        assertEquals("Alice,Moscow,101000", lines.get(1));
+        // Вложенный объект равен null - все его колонки пустые
+        assertEquals("Bob,,", lines.get(2));
+    }
+
+    /**
+     * Проверяет раскладку на несколько уровней вложенности.
+     */
+    @Test
+    void testDeepFlattening() throws IOException {
+        List<Department> departments = Collections.singletonList(
+                new Department("R&D", new Employee("Alice", new Address("Kazan", "420000"))));
+
+        Path outputFile = tempDir.resolve("departments.csv");
+
+        csvWriter.writeToFile(departments, outputFile.toString());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Department,head.Name,head.address.City,head.address.Zip", lines.get(0));
+        assertEquals("R&D,Alice,Kazan,420000", lines.get(1));
+    }
+
+    /**
+     * Проверяет колонки из getter-методов вместе с колонками из полей.
+     */
+    @Test
+    void testGetterColumns() throws IOException {
+        List<Account> accounts = Collections.singletonList(new Account("admin", true));
+
+        Path outputFile = tempDir.resolve("accounts.csv");
+
+        csvWriter.writeToFile(accounts, outputFile.toString());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Login,active,Login Length", lines.get(0));
+        assertEquals("admin,true,5", lines.get(1));
+    }
+
+    /**
+     * Проверяет, что циклическая раскладка вложенных типов отклоняется.
+     */
+    @Test
+    void testCyclicFlattenThrowsException() {
+        List<TreeNode> nodes = Collections.singletonList(new TreeNode("root", null));
+        Path outputFile = tempDir.resolve("cycle.csv");
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(nodes, outputFile.toString()));
+    }
+
+    /**
+     * Проверяет, что раскладка типа без аннотированных членов отклоняется, а не теряет колонку молча.
+     */
+    @Test
+    void testFlattenTypeWithoutColumnsThrowsException() {
+        List<Birth> births = Collections.singletonList(new Birth("b1", LocalDate.of(1990, 5, 1)));
+        Path outputFile = tempDir.resolve("birth.csv");
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(births, outputFile.toString()));
+    }
+
+    // ============================================
+    // Тесты выбора колонок и отбора строк
+    // ============================================
+
+    /**
+     * Проверяет вывод только выбранных колонок в заданном порядке с переименованием.
+     */
+    @Test
+    void testIncludeAndRenameColumns() throws IOException {
+        Path outputFile = tempDir.resolve("projected.csv");
+
+        csvWriter.writeToFile(createPeople(2), outputFile.toString(), ExportOptions.builder()
+                .includeColumns(List.of("Year", "First Name"))
+                .renameColumns(Map.of("First Name", "name"))
+                .build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Year,name", lines.get(0));
+        assertEquals("1990,Name0", lines.get(1));
+        assertEquals("1991,Name1", lines.get(2));
+    }
+
+    /**
+     * Проверяет исключение колонок и то, что значения исключенных колонок не читаются.
+     */
+    @Test
+    void testExcludedColumnsAreNeverRead() throws IOException {
+        Path outputFile = tempDir.resolve("excluded.csv");
+        List<Sensor> sensors = Collections.singletonList(new Sensor("s1"));
+
+        csvWriter.writeToFile(sensors, outputFile.toString(), ExportOptions.builder()
+                .excludeColumns(Set.of("Reading"))
+                .build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Id", lines.get(0));
+        assertEquals("s1", lines.get(1));
+    }
+
+    /**
+     * Проверяет отбор строк условием: отброшенные строки не попадают в файл.
+     */
+    @Test
+    void testRowFilter() throws IOException {
+        Path outputFile = tempDir.resolve("filtered.csv");
+
+        csvWriter.writeToFile(createPeople(10), outputFile.toString(), ExportOptions.builder()
+                .rowFilter((Person person) -> person.getYearOfBirth() % 2 == 0)
+                .build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals(6, lines.size()); // Заголовок + 5 строк с четным годом
+        assertEquals("Name0,Surname0,1,JANUARY,1990", lines.get(1));
+        assertEquals("Name2,Surname2,3,MARCH,1992", lines.get(2));
+        assertEquals("Name8,Surname8,9,SEPTEMBER,1998", lines.get(5));
+    }
+
+    /**
+     * Проверяет, что при буферизованной перезаписи условие отбора вызывается ровно один раз на строку,
+     * хотя первые строки просматриваются заранее для подбора буфера. Условие с состоянием,
+     * отбрасывающее повторы, должно оставить по одной строке на каждый ключ.
+     */
+    @Test
+    void testRowFilterCalledOncePerRow() throws IOException {
+        List<Person> people = createPeople(100);
+        AtomicInteger calls = new AtomicInteger();
+        Path countedFile = tempDir.resolve("counted.csv");
+
+        csvWriter.writeToFile(people, countedFile.toString(), ExportOptions.builder()
+                .rowFilter((Person person) -> calls.incrementAndGet() > 0)
+                .build());
+
+        assertEquals(100, calls.get());
+        assertEquals(101, Files.readAllLines(countedFile).size());
+
+        // 50 различных ключей, каждый встречается дважды
+        Set<Integer> seen = new HashSet<>();
+        Path distinctFile = tempDir.resolve("distinct.csv");
+
+        csvWriter.writeToFile(people, distinctFile.toString(), ExportOptions.builder()
+                .rowFilter((Person person) -> seen.add(person.getYearOfBirth() % 50))
+                .build());
+
+        assertEquals(51, Files.readAllLines(distinctFile).size());
+    }
+
+    /**
+     * Проверяет, что при выводе через отображение в память условие отбора вызывается ровно один раз на строку,
+     * хотя первые строки просматриваются заранее для оценки размера файла.
+     */
+    @Test
+    void testMemoryMappedRowFilterCalledOncePerRow() throws IOException {
+        for (WriteMode mode : WriteMode.values()) {
+            AtomicInteger calls = new AtomicInteger();
+            Path outputFile = tempDir.resolve("mapped_filter_" + mode + ".csv");
+
+            csvWriter.writeToFile(createPeople(100), outputFile.toString(), ExportOptions.builder()
+                    .mode(mode)
+                    .output(OutputMode.MEMORY_MAPPED)
+                    .sampleSize(10)
+                    .rowFilter((Person person) -> calls.incrementAndGet() % 2 == 0)
+                    .build());
+
+            assertEquals(100, calls.get(), mode.name());
+            assertEquals(51, Files.readAllLines(outputFile).size(), mode.name());
+        }
+    }
+
+    /**
+     * Проверяет, что проекция строится один раз для пары (класс, параметры проекции).
+     */
+    @Test
+    void testProjectionIsCachedPerClass() {
+        CsvSchema.Projection projection = new CsvSchema.Projection(List.of("Year"), Set.of(), Map.of());
+        CsvSchema.Projection sameProjection = new CsvSchema.Projection(List.of("Year"), Set.of(), Map.of());
+
+        CsvSchema first = CsvSchema.of(Person.class).project(projection);
+        CsvSchema second = CsvSchema.of(Person.class).project(sameProjection);
+
+        assertSame(first, second);
+        assertEquals(1, first.columns().size());
+    }
+
+    /**
+     * Проверяет, что кэш проекций ограничен: проекции сверх предела строятся заново при каждом вызове,
+     * а ранее закэшированные сохраняются.
+     */
+    @Test
+    void testProjectionCacheIsBounded() {
+        CsvSchema schema = CsvSchema.of(Labeled.class);
+        List<CsvSchema> projected = IntStream.range(0, CsvSchema.MAX_CACHED_PROJECTIONS + 1)
+                .mapToObj(i -> schema.project(new CsvSchema.Projection(null, Set.of(), Map.of("Label", "L" + i))))
+                .toList();
+
+        CsvSchema.Projection first = new CsvSchema.Projection(null, Set.of(), Map.of("Label", "L0"));
+        CsvSchema.Projection overflow = new CsvSchema.Projection(null, Set.of(),
+                Map.of("Label", "L" + CsvSchema.MAX_CACHED_PROJECTIONS));
+        assertSame(projected.get(0), schema.project(first));
+        assertNotSame(projected.get(CsvSchema.MAX_CACHED_PROJECTIONS), schema.project(overflow));
+        assertEquals("L" + CsvSchema.MAX_CACHED_PROJECTIONS, schema.project(overflow).columns().get(0).name());
+    }
+
+    /**
+     * Проверяет, что ссылка на несуществующую колонку вызывает исключение.
+     */
+    @Test
+    void testUnknownProjectedColumnThrowsException() {
+        Path outputFile = tempDir.resolve("unknown.csv");
+        ExportOptions options = ExportOptions.builder().includeColumns(List.of("Middle Name")).build();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> csvWriter.writeToFile(createPeople(1), outputFile.toString(), options));
+    }
+
+    // ============================================
+    // Тесты диалектов вывода
+    // ============================================
+
+    /**
+     * Проверяет TSV: табуляция и переводы строк внутри значений экранируются, кавычки не используются.
+     */
+    @Test
+    void testTsvDialect() throws IOException {
+        List<Person> people = Collections.singletonList(
+                Person.builder()
+                        .firstName("John\t\"J\"")
+                        .lastName("Doe,\nJr.")
+                        .dayOfBirth(1)
+                        .monthOfBirth(Months.JANUARY)
+                        .yearOfBirth(1990)
+                        .build()
+        );
+
+        Path outputFile = tempDir.resolve("people.tsv");
+
+        csvWriter.writeToFile(people, outputFile.toString(),
+                ExportOptions.builder().dialect(DelimitedDialect.TSV).build());
+
+        assertEquals("First Name\tLast Name\tDay\tMonth\tYear\n"
+                        + "John\\t\"J\"\tDoe,\\nJr.\t1\tJANUARY\t1990\n",
+                Files.readString(outputFile));
+    }
+
+    /**
+     * Проверяет строгий RFC 4180: окончание строки CRLF и удвоение кавычек.
+     */
+    @Test
+    void testRfc4180Dialect() throws IOException {
+        List<Student> students = Collections.singletonList(
+                Student.builder().name("Alice \"A\"").score(List.of("90", "95")).build());
+
+        Path outputFile = tempDir.resolve("students_rfc.csv");
+
+        csvWriter.writeToFile(students, outputFile.toString(),
+                ExportOptions.builder().dialect(DelimitedDialect.RFC4180).build());
+
+        assertEquals("Student Name,Scores\r\n\"Alice \"\"A\"\"\",90;95\r\n", Files.readString(outputFile));
+    }
+
+    /**
+     * Проверяет кавычки у всех значений и собственное обозначение null.
+     */
+    @Test
+    void testAlwaysQuoteWithNullToken() throws IOException {
+        List<Person> people = Collections.singletonList(
+                Person.builder().firstName("John").lastName(null).dayOfBirth(2).yearOfBirth(1990).build());
+        DelimitedDialect dialect = DelimitedDialect.builder()
+                .delimiter(";")
+                .quoteMode(QuoteMode.ALWAYS)
+                .nullToken("NULL")
+                .lineEnding("\n")
+                .build();
+
+        Path outputFile = tempDir.resolve("quoted.csv");
+
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder().dialect(dialect).build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("\"First Name\";\"Last Name\";\"Day\";\"Month\";\"Year\"", lines.get(0));
+        assertEquals("\"John\";NULL;\"2\";NULL;\"1990\"", lines.get(1));
+    }
+
+    /**
+     * Проверяет фиксированную ширину колонок: дополнение, обрезку и выравнивание.
+     */
+    @Test
+    void testFixedWidthDialect() throws IOException {
+        List<Person> people = Collections.singletonList(
+                Person.builder()
+                        .firstName("Alexander")
+                        .lastName("Li")
+                        .dayOfBirth(7)
+                        .monthOfBirth(Months.MAY)
+                        .yearOfBirth(1990)
+                        .build()
+        );
+        FixedWidthDialect dialect = FixedWidthDialect.builder()
+                .widths(Map.of("First Name", 6, "Last Name", 4, "Day", 4, "Month", 6, "Year", 5))
+                .alignRight(true)
+                .build();
+
+        Path outputFile = tempDir.resolve("people.txt");
+
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder().dialect(dialect).build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("First Last Day Month Year", lines.get(0));
+        assertEquals("Alexan  Li   7   MAY 1990", lines.get(1));
+    }
+
+    /**
+     * Проверяет, что обрезка по ширине не разрезает суррогатную пару: символ вне BMP переносится
+     * целиком или не выводится вовсе.
+     */
+    @Test
+    void testFixedWidthTruncationKeepsSurrogatePairs() throws IOException {
+        List<Person> people = Collections.singletonList(
+                Person.builder()
+                        .firstName("x😀y")
+                        .lastName("😀z")
+                        .dayOfBirth(7)
+                        .monthOfBirth(Months.MAY)
+                        .yearOfBirth(1990)
+                        .build()
+        );
+        FixedWidthDialect dialect = FixedWidthDialect.builder()
+                .widths(Map.of("First Name", 2, "Last Name", 3, "Day", 1, "Month", 1, "Year", 1))
+                .build();
+
+        Path outputFile = tempDir.resolve("surrogates.txt");
+
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder().dialect(dialect).build());
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("x 😀z7M1", lines.get(1));
+    }
+
+    /**
+     * Проверяет JSON Lines: числа как литералы, коллекции как массивы, строки с экранированием, без заголовка.
+     */
+    @Test
+    void testJsonLinesDialect() throws IOException {
+        List<Student> students = Arrays.asList(
+                Student.builder().name("Alice \"A\"").score(List.of("90", "95")).build(),
+                Student.builder().name("Bob").score(null).build()
+        );
+        List<Person> people = Collections.singletonList(
+                Person.builder().firstName("John").dayOfBirth(1).monthOfBirth(Months.MAY).yearOfBirth(1990).build());
+        ExportOptions options = ExportOptions.builder().dialect(JsonLinesDialect.DEFAULT).build();
+
+        Path studentsFile = tempDir.resolve("students.jsonl");
+        Path peopleFile = tempDir.resolve("people.jsonl");
+
+        csvWriter.writeToFile(students, studentsFile.toString(), options);
+        csvWriter.writeToFile(people, peopleFile.toString(), options);
+
+        assertEquals("{\"Student Name\":\"Alice \\\"A\\\"\",\"Scores\":[\"90\",\"95\"]}\n"
+                        + "{\"Student Name\":\"Bob\",\"Scores\":null}\n",
+                Files.readString(studentsFile));
+        assertEquals("{\"First Name\":\"John\",\"Last Name\":null,\"Day\":1,\"Month\":\"MAY\",\"Year\":1990}\n",
+                Files.readString(peopleFile));
+    }
+
+    /**
+     * Проверяет дозапись в формате без заголовка.
+     */
+    @Test
+    void testAppendJsonLines() throws IOException {
+        List<Person> people = createPeople(4);
+        ExportOptions options = ExportOptions.builder()
+                .dialect(JsonLinesDialect.DEFAULT)
+                .mode(WriteMode.APPEND)
+                .build();
+
+        Path outputFile = tempDir.resolve("append.jsonl");
+
+        csvWriter.writeToFile(people.subList(0, 2), outputFile.toString(), options);
+        csvWriter.writeToFile(people.subList(2, 4), outputFile.toString(), options);
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(3).startsWith("{\"First Name\":\"Name3\""));
+    }
+
+    // ============================================
+    // Тесты списков из объектов разных классов
+    // ============================================
+
+    /**
+     * Проверяет, что колонки подклассов объединяются, а отсутствующие у объекта колонки остаются пустыми.
+     */
+    @Test
+    void testMixedListUsesUnionOfColumns() throws IOException {
+        List<Vehicle> vehicles = List.of(new Car("c1", "Sedan", 4), new Truck("t1", "Hauler", 20), new Car("c2", "Coupe", 2));
+        Path outputFile = tempDir.resolve("vehicles.csv");
+
+        csvWriter.writeToFile(vehicles, outputFile.toString(), ExportOptions.builder().unionColumns(true).build());
+
+        assertEquals(List.of("Id,Model,Doors,Payload", "c1,Sedan,4,", "t1,Hauler,,20", "c2,Coupe,2,"),
+                Files.readAllLines(outputFile));
+    }
+
+    /**
+     * Проверяет вывод по объявленному базовому типу: собственные колонки подклассов не выводятся.
+     * Без объявленного типа первый объект определил бы колонки как Truck, и Car был бы отклонен.
+     */
+    @Test
+    void testDeclaredRowTypeLimitsColumnsToBaseType() throws IOException {
+        List<Vehicle> vehicles = List.of(new Truck("t1", "Hauler", 20), new Car("c1", "Sedan", 4), new Vehicle("v1", "Cart"));
+        Path outputFile = tempDir.resolve("base.csv");
+
+        csvWriter.writeToFile(vehicles, outputFile.toString(), ExportOptions.builder().rowType(Vehicle.class).build());
+
+        assertEquals(List.of("Id,Model", "t1,Hauler", "c1,Sedan", "v1,Cart"), Files.readAllLines(outputFile));
+    }
+
+    /**
+     * Проверяет, что объект, не являющийся экземпляром объявленного базового типа, отклоняется.
+     */
+    @Test
+    void testRowOfUndeclaredTypeIsRejected() {
+        List<Object> rows = List.of(new Car("c1", "Sedan", 4), createPeople(1).get(0));
+        ExportOptions declared = ExportOptions.builder().rowType(Vehicle.class).build();
+        String fileName = tempDir.resolve("rejected.csv").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(rows, fileName, declared));
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(
+                List.of(new Car("c1", "Sedan", 4), new Truck("t1", "Hauler", 20)), fileName));
+    }
+
+    /**
+     * Проверяет чередование трех классов: третий класс уже не помещается в кэш форматирования
+     * и каждый раз ищется в схеме, но результат от этого не меняется.
+     */
+    @Test
+    void testAlternatingSubclassesWithProjection() throws IOException {
+        List<Vehicle> vehicles = IntStream.range(0, 9)
+                .mapToObj(i -> switch (i % 3) {
+                    case 0 -> new Car("c" + i, "Sedan", 4);
+                    case 1 -> new Truck("t" + i, "Hauler", i);
+                    default -> new Vehicle("v" + i, "Cart");
+                })
+                .toList();
+        ExportOptions options = ExportOptions.builder()
+                .unionColumns(true)
+                .includeColumns(List.of("Payload", "Id"))
+                .renameColumns(Map.of("Payload", "Tons"))
+                .build();
+        Path outputFile = tempDir.resolve("alternating.csv");
+
+        csvWriter.writeToFile(vehicles, outputFile.toString(), options);
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals("Tons,Id", lines.get(0));
+        assertEquals(List.of(",c6", "7,t7", ",v8"), lines.subList(7, 10));
+    }
+
+    /**
+     * Проверяет, что аннотированный getter, переопределенный в подклассе, дает одну колонку со значением подкласса.
+     */
+    @Test
+    void testOverriddenGetterReplacesInheritedColumn() {
+        List<String> names = CsvSchema.of(ElectricCar.class).columns().stream()
+                .map(CsvSchema.Column::name)
+                .toList();
+
+        assertEquals(List.of("Id", "Model", "Doors", "Range"), names);
+        assertEquals("EV", CsvSchema.of(ElectricCar.class).columns().get(1).accessor()
+                .get(new ElectricCar("e1", 4)));
+    }
+
+    /**
+     * Проверяет, что повторяющиеся имена колонок отклоняются: и у поля с getter-методом одного класса,
+     * и у поля подкласса, скрывающего аннотированное поле базового класса. Иначе колонки, которые
+     * находятся по имени, получили бы значение только одного из них.
+     */
+    @Test
+    void testDuplicateColumnNamesAreRejected() {
+        String fileName = tempDir.resolve("duplicate.csv").toString();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> csvWriter.writeToFile(List.of(new FieldAndGetter()), fileName));
+        assertThrows(IllegalArgumentException.class,
+                () -> csvWriter.writeToFile(List.of(new HidingLabel()), fileName));
+        assertThrows(IllegalArgumentException.class,
+                () -> csvWriter.writeToFile(List.of(new Labeled(), new HidingLabel()), fileName,
+                        ExportOptions.builder().unionColumns(true).build()));
+    }
+
+    // ============================================
+    // Тесты подбора буфера вывода
+    // ============================================
+
+    /**
+     * Проверяет, что маленькая выгрузка получает маленький буфер и отчет о выбранных параметрах.
+     */
+    @Test
+    void testSmallExportGetsSmallBuffer() throws IOException {
+        List<IoSettings> reported = new ArrayList<>();
+        Path outputFile = tempDir.resolve("small.csv");
+
+        csvWriter.writeToFile(createPeople(3), outputFile.toString(),
+                ExportOptions.builder().ioListener(reported::add).build());
+
+        assertEquals(1, reported.size());
+        IoSettings settings = reported.get(0);
+        assertEquals(1024, settings.bufferSize());
+        // Оценка по выборке включает запас 10%
+        assertTrue(settings.estimatedSize() >= Files.size(outputFile));
+        assertTrue(settings.estimatedSize() < Files.size(outputFile) * 1.2);
+        assertTrue(settings.flushBatch() > 20 && settings.flushBatch() < 40, "Строк за сброс: " + settings.flushBatch());
+    }
+
+    /**
+     * Проверяет, что подобранный буфер большой выгрузки остается в заданных границах,
+     * а постоянный размер задается равными границами.
+     */
+    @Test
+    void testBufferStaysWithinConfiguredLimits() throws IOException {
+        List<Person> people = createPeople(50_000);
+        Path outputFile = tempDir.resolve("limits.csv");
+        Path expectedFile = tempDir.resolve("expected.csv");
+        List<IoSettings> reported = new ArrayList<>();
+        csvWriter.writeToFile(people, expectedFile.toString());
+
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder()
+                .minBufferSize(2048)
+                .maxBufferSize(16 * 1024)
+                .ioListener(reported::add)
+                .build());
+        csvWriter.writeToFile(people, outputFile.toString(), ExportOptions.builder()
+                .minBufferSize(4096)
+                .maxBufferSize(4096)
+                .ioListener(reported::add)
+                .build());
+
+        assertEquals(Files.readString(expectedFile), Files.readString(outputFile));
+        assertTrue(reported.get(0).bufferSize() >= 2048 && reported.get(0).bufferSize() <= 16 * 1024);
+        assertTrue(reported.get(0).bytesPerSecond() > 0);
+        assertEquals(4096, reported.get(1).bufferSize());
+    }
+
+    /**
+     * Проверяет, что некорректные границы буфера отклоняются.
+     */
+    @Test
+    void testInvalidBufferLimitsAreRejected() {
+        List<Person> people = createPeople(1);
+        String fileName = tempDir.resolve("invalid.csv").toString();
+        ExportOptions inverted = ExportOptions.builder().minBufferSize(8192).maxBufferSize(4096).build();
+
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(people, fileName, inverted));
+    }
+
     // ============================================
     // Тесты с использованием Datafaker
     // ============================================
@@ -492,6 +1319,24 @@ class CsvWriterTest {
         System.out.println("Тест производительности: 1000 записей записано за " + duration + "мс");
     }
 
+    /**
+     * Вспомогательный метод для создания предсказуемого списка Person.
+     *
+     * @param count количество записей
+     * @return список людей с именами Name0, Name1, ...
+     */
+    private List<Person> createPeople(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Person.builder()
+                        .firstName("Name" + i)
+                        .lastName("Surname" + i)
+                        .dayOfBirth(i + 1)
+                        .monthOfBirth(Months.values()[i % 12])
+                        .yearOfBirth(1990 + i)
+                        .build())
+                .toList();
+    }
+
     /**
      * Вспомогательный метод для создания Person используя конкретный экземпляр Faker.
      *
@@ -507,4 +1352,195 @@ class CsvWriterTest {
                 .yearOfBirth(faker.number().numberBetween(1970, 2000))
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Адрес для проверки вложенных колонок.
+     */
+    record Address(@CsvColumn(name = "City", order = 1) String city,
+                   @CsvColumn(name = "Zip", order = 2) String zip) {
+    }
+
+    /**
+     * Сотрудник с раскладываемым адресом.
+     */
+    record Employee(@CsvColumn(name = "Name", order = 1) String name,
+                    @CsvColumn(name = "address", order = 2, flatten = true) Address address) {
+    }
+
+    /**
+     * Отдел с раскладываемым руководителем, у которого в свою очередь раскладывается адрес.
+     */
+    record Department(@CsvColumn(name = "Department", order = 1) String name,
+                      @CsvColumn(name = "head", order = 2, flatten = true) Employee head) {
+    }
+
+    /**
+     * Учетная запись с колонками из поля и getter-методов.
+     */
+    static class Account {
+
+        @CsvColumn(name = "Login", order = 1)
+        private final String login;
+
+        private final boolean active;
+
+        Account(String login, boolean active) {
+            this.login = login;
+            this.active = active;
+        }
+
+        @CsvColumn(order = 2)
+        public boolean isActive() {
+            return active;
+        }
+
+        @CsvColumn(name = "Login Length", order = 3)
+        public int getLoginLength() {
+            return login.length();
+        }
+    }
+
+    /**
+     * Узел, ссылающийся на узел того же типа: раскладка такого типа бесконечна.
+     */
+    record TreeNode(@CsvColumn(name = "Id", order = 1) String id,
+                    @CsvColumn(name = "next", order = 2, flatten = true) TreeNode next) {
+    }
+
+    /**
+     * Датчик, чтение показаний которого недопустимо при выгрузке.
+     */
+    static class Sensor {
+
+        @CsvColumn(name = "Id", order = 1)
+        private final String id;
+
+        Sensor(String id) {
+            this.id = id;
+        }
+
+        @CsvColumn(name = "Reading", order = 2)
+        public double getReading() {
+            throw new IllegalStateException("Reading must not be accessed");
+        }
+    }
+
+    /**
+     * Базовый класс для проверки списков из объектов разных классов.
+     */
+    static class Vehicle {
+
+        @CsvColumn(name = "Id", order = 1)
+        private final String id;
+
+        private final String model;
+
+        Vehicle(String id, String model) {
+            this.id = id;
+            this.model = model;
+        }
+
+        @CsvColumn(name = "Model", order = 2)
+        public String getModel() {
+            return model;
+        }
+    }
+
+    /**
+     * Подкласс с собственной колонкой.
+     */
+    static class Car extends Vehicle {
+
+        @CsvColumn(name = "Doors", order = 3)
+        private final int doors;
+
+        Car(String id, String model, int doors) {
+            super(id, model);
+            this.doors = doors;
+        }
+    }
+
+    /**
+     * Второй подкласс с другой собственной колонкой.
+     */
+    static class Truck extends Vehicle {
+
+        @CsvColumn(name = "Payload", order = 3)
+        private final int payload;
+
+        Truck(String id, String model, int payload) {
+            super(id, model);
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Подкласс второго уровня, переопределяющий аннотированный getter.
+     */
+    static class ElectricCar extends Car {
+
+        ElectricCar(String id, int doors) {
+            super(id, "unused", doors);
+        }
+
+        @Override
+        @CsvColumn(name = "Model", order = 2)
+        public String getModel() {
+            return "EV";
+        }
+
+        @CsvColumn(name = "Range", order = 4)
+        public int getRange() {
+            return 400;
+        }
+    }
+
+    /**
+     * Поле и getter-метод с одним именем колонки.
+     */
+    static class FieldAndGetter {
+
+        @CsvColumn(name = "A", order = 1)
+        private final String a = "fieldA";
+
+        @CsvColumn(name = "A", order = 2)
+        public String getB() {
+            return "getterB";
+        }
+    }
+
+    /**
+     * Класс с аннотированным полем.
+     */
+    static class Labeled {
+
+        @CsvColumn(name = "Label", order = 1)
+        String label = "base";
+    }
+
+    /**
+     * Подкласс, скрывающий аннотированное поле базового класса своим полем с тем же именем колонки.
+     */
+    static class HidingLabel extends Labeled {
+
+        @CsvColumn(name = "Label", order = 2)
+        String label = "sub";
+    }
+
+    /**
+     * Класс, раскладывающий тип без аннотаций @CsvColumn.
+     */
+    static class Birth {
+
+        @CsvColumn(name = "id", order = 1)
+        private final String id;
+
+        @CsvColumn(name = "born", order = 2, flatten = true)
+        private final LocalDate born;
+
+        Birth(String id, LocalDate born) {
+            this.id = id;
+            this.born = born;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.writer;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Регрессионные тесты выделения памяти и скорости записи.
+ * Замеры сравниваются с базовыми значениями из {@code export-baselines.properties};
+ * тест падает, если на строку выделяется больше памяти или строки пишутся медленнее допустимого.
+ */
+class ExportBudgetTest {
+
+    private static final int ROWS = 100_000;
+    private static final long SEED = 20_240_101L;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    private static Properties baselines;
+
+    private CsvWriter csvWriter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void loadBaselines() throws IOException {
+        baselines = new Properties();
+        try (InputStream in = ExportBudgetTest.class.getResourceAsStream("/export-baselines.properties")) {
+            assertNotNull(in, "Не найден файл базовых значений export-baselines.properties");
+            baselines.load(in);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        csvWriter = new CsvWriter();
+    }
+
+    /**
+     * Проверяет бюджет памяти и скорость записи Person.
+     */
+    @Test
+    void testPersonExportBudget() throws IOException {
+        checkBudget("person", TestData.people(ROWS, SEED));
+    }
+
+    /**
+     * Проверяет бюджет памяти и скорость записи Student со списками оценок.
+     */
+    @Test
+    void testStudentExportBudget() throws IOException {
+        checkBudget("student", TestData.students(ROWS, SEED));
+    }
+
+    /**
+     * Проверяет, что генератор при одном seed выдает одинаковые данные.
+     */
+    @Test
+    void testGeneratorIsDeterministic() {
+        assertEquals(TestData.people(100, SEED), TestData.people(100, SEED));
+        assertEquals(TestData.students(100, SEED), TestData.students(100, SEED));
+    }
+
+    private void checkBudget(String model, List<?> data) throws IOException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM не считает выделенную потоком память");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        long threadId = Thread.currentThread().getId();
+        String fileName = tempDir.resolve(model + ".csv").toString();
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            csvWriter.writeToFile(data, fileName);
+        }
+
+        // Берутся лучшие замеры: шум (GC, JIT, соседние процессы) только ухудшает результат
+        double bytesPerRow = Double.MAX_VALUE;
+        double rowsPerSecond = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            csvWriter.writeToFile(data, fileName);
+            long elapsed = System.nanoTime() - start;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            bytesPerRow = Math.min(bytesPerRow, (double) allocated / data.size());
+            rowsPerSecond = Math.max(rowsPerSecond, data.size() * 1e9 / elapsed);
+        }
+        assertTrue(Files.size(Path.of(fileName)) > 0);
+
+        double bytesBudget = baseline(model + ".bytesPerRow") * baseline("allocation.tolerance");
+        double rowsFloor = baseline(model + ".rowsPerSecond") * throughputTolerance();
+        System.out.printf("Бюджет %s: %.1f байт на строку (допустимо %.1f), %.0f строк/с (минимум %.0f)%n",
+                model, bytesPerRow, bytesBudget, rowsPerSecond, rowsFloor);
+
+        assertTrue(bytesPerRow <= bytesBudget, String.format(
+                "%s: выделяется %.1f байт на строку, бюджет %.1f", model, bytesPerRow, bytesBudget));
+        assertTrue(rowsPerSecond >= rowsFloor, String.format(
+                "%s: %.0f строк/с, ожидалось не меньше %.0f", model, rowsPerSecond, rowsFloor));
+    }
+
+    private static double baseline(String key) {
+        String value = baselines.getProperty(key);
+        assertNotNull(value, "Нет базового значения " + key);
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * Допуск по скорости можно ослабить на медленной машине: {@code -Dexport.throughputTolerance=0.1}.
+     */
+    private static double throughputTolerance() {
+        String override = System.getProperty("export.throughputTolerance");
+        return override != null ? Double.parseDouble(override) : baseline("throughput.tolerance");
+    }
+}
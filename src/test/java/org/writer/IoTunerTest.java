@@ -0,0 +1,68 @@
+package org.writer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты подбора размера буфера вывода {@link IoTuner}.
+ */
+class IoTunerTest {
+
+    private static final int MIN = 1024;
+    private static final int MAX = 4 * 1024 * 1024;
+
+    /**
+     * Проверяет, что маленькая выгрузка получает буфер своего размера, но не меньше нижней границы.
+     */
+    @Test
+    void testInitialBufferFollowsEstimate() {
+        assertEquals(3000, new IoTuner(MIN, MAX, 3000).initialBufferSize());
+        assertEquals(MIN, new IoTuner(MIN, MAX, 100).initialBufferSize());
+        assertEquals(IoTuner.INITIAL_BUFFER_SIZE, new IoTuner(MIN, MAX, 10L << 30).initialBufferSize());
+        assertEquals(IoTuner.INITIAL_BUFFER_SIZE, new IoTuner(MIN, MAX, IoTuner.UNKNOWN_SIZE).initialBufferSize());
+    }
+
+    /**
+     * Проверяет рост буфера при быстром выводе: буфер должен заполняться примерно за 10 мс.
+     */
+    @Test
+    void testFastOutputGrowsBufferWithinLimits() {
+        // 64 КиБ за 1 мс - около 65 МБ/с, за 10 мс набирается больше 512 КиБ
+        assertEquals(512 * 1024, new IoTuner(MIN, MAX, IoTuner.UNKNOWN_SIZE)
+                .nextBufferSize(64 * 1024, 1_000_000, 64 * 1024));
+        // При 650 МБ/с нужный буфер больше верхней границы
+        assertEquals(1024 * 1024, new IoTuner(MIN, 1024 * 1024, IoTuner.UNKNOWN_SIZE)
+                .nextBufferSize(64 * 1024, 100_000, 64 * 1024));
+        // Буфер не растет больше оценки объема вывода
+        assertEquals(200_000, new IoTuner(MIN, MAX, 200_000)
+                .nextBufferSize(64 * 1024, 100_000, 64 * 1024));
+    }
+
+    /**
+     * Проверяет уменьшение буфера при медленном выводе и устойчивость к небольшим колебаниям скорости.
+     */
+    @Test
+    void testSlowOutputShrinksBufferWithHysteresis() {
+        // 64 КиБ за секунду: за 10 мс набирается меньше килобайта
+        assertEquals(MIN, new IoTuner(MIN, MAX, IoTuner.UNKNOWN_SIZE)
+                .nextBufferSize(64 * 1024, 1_000_000_000L, 64 * 1024));
+        // Нужно 32 КиБ при буфере 64 КиБ: разница меньше четырех раз, буфер не меняется
+        assertEquals(64 * 1024, new IoTuner(MIN, MAX, IoTuner.UNKNOWN_SIZE)
+                .nextBufferSize(32 * 1024, 10_000_000, 64 * 1024));
+    }
+
+    /**
+     * Проверяет отчет о выбранных параметрах.
+     */
+    @Test
+    void testSettingsReportRowsPerFlush() {
+        IoTuner tuner = new IoTuner(MIN, MAX, 5000);
+        tuner.nextBufferSize(1_000_000, 1_000_000_000L, 4096);
+
+        IoSettings settings = tuner.settings(4096, 32);
+
+        assertEquals(new IoSettings(4096, 128, 5000, 1_000_000), settings);
+        assertEquals(0, tuner.settings(4096, 0).flushBatch());
+    }
+}
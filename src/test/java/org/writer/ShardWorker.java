@@ -0,0 +1,28 @@
+package org.writer;
+
+import org.writer.model.Person;
+
+import java.util.List;
+
+/**
+ * Точка входа отдельного процесса, выгружающего одну часть набора данных, для {@link ShardedExportTest}.
+ * Все процессы создают одинаковый набор данных генератором {@link TestData} с общим seed.
+ *
+ * <p>Аргументы: файл набора данных, номер части, число частей, число строк, seed.
+ */
+public final class ShardWorker {
+
+    private ShardWorker() {
+    }
+
+    public static void main(String[] args) {
+        String dataset = args[0];
+        int shardId = Integer.parseInt(args[1]);
+        int shardCount = Integer.parseInt(args[2]);
+        List<Person> people = TestData.people(Integer.parseInt(args[3]), Long.parseLong(args[4]));
+
+        new CsvWriter().writeToFile(people, dataset, ExportOptions.builder()
+                .shard(new ShardSpec(shardId, shardCount, ShardedExportTest.KEY_COLUMN))
+                .build());
+    }
+}
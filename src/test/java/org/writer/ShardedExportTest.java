@@ -0,0 +1,201 @@
+package org.writer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.writer.model.Person;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты выгрузки, разделенной на части, и объединения частей через {@link ShardManifest}.
+ */
+class ShardedExportTest {
+
+    static final String KEY_COLUMN = "Year";
+
+    private static final long SEED = 42L;
+
+    private CsvWriter csvWriter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        csvWriter = new CsvWriter();
+    }
+
+    /**
+     * Проверяет выгрузку частями в отдельных процессах: каждая часть содержит только свои строки,
+     * а склеенный файл содержит заголовок один раз и все строки исходного набора.
+     */
+    @Test
+    void testShardsWrittenByLocalProcessesMergeIntoOneDataset() throws Exception {
+        int shardCount = 3;
+        int rows = 20_000;
+        Path dataset = tempDir.resolve("people.csv");
+
+        List<Process> workers = new ArrayList<>();
+        for (int id = 0; id < shardCount; id++) {
+            workers.add(startWorker(dataset, id, shardCount, rows));
+        }
+        for (Process worker : workers) {
+            assertTrue(worker.waitFor(60, TimeUnit.SECONDS), "Процесс части не завершился");
+            assertEquals(0, worker.exitValue());
+        }
+
+        ShardManifest manifest = ShardManifest.merge(dataset, shardCount, true);
+
+        Path expectedFile = tempDir.resolve("expected.csv");
+        csvWriter.writeToFile(TestData.people(rows, SEED), expectedFile.toString());
+        List<String> expected = Files.readAllLines(expectedFile);
+        List<String> merged = Files.readAllLines(dataset);
+
+        assertEquals(rows, manifest.rowCount());
+        assertEquals(expected.get(0), merged.get(0));
+        assertEquals(sortedData(expected), sortedData(merged));
+
+        for (ShardManifest.Part part : manifest.parts()) {
+            ShardSpec shard = new ShardSpec(part.shardId(), shardCount, KEY_COLUMN);
+            List<String> lines = Files.readAllLines(part.file());
+            assertEquals(expected.get(0), lines.get(0));
+            assertEquals(part.rows(), lines.size() - 1L);
+            // Год - последняя колонка и не требует кавычек
+            lines.subList(1, lines.size()).forEach(line ->
+                    assertTrue(shard.owns(line.substring(line.lastIndexOf(',') + 1)), line));
+        }
+    }
+
+    /**
+     * Проверяет манифест без склейки: части перечислены, файл набора данных не создается.
+     */
+    @Test
+    void testMergeWithoutConcatenationWritesManifestOnly() {
+        Path dataset = tempDir.resolve("people.csv");
+        List<Person> people = TestData.people(500, SEED);
+        for (int id = 0; id < 4; id++) {
+            csvWriter.writeToFile(people, dataset.toString(), shardOptions(id, 4));
+        }
+
+        ShardManifest merged = ShardManifest.merge(dataset, 4, false);
+        ShardManifest read = ShardManifest.read(ShardManifest.pathFor(dataset));
+
+        assertFalse(Files.exists(dataset));
+        assertFalse(read.merged().isPresent());
+        assertEquals(500, read.rowCount());
+        assertEquals(merged.parts(), read.parts());
+        assertEquals(ShardManifest.partPath(dataset, 3), read.parts().get(3).file());
+    }
+
+    /**
+     * Проверяет, что склейка удаляет устаревшие контрольную точку и индекс файла набора данных,
+     * и последующая дозапись продолжает склеенный файл, а не прежнюю прерванную запись.
+     */
+    @Test
+    void testConcatenationRemovesStaleSidecars() throws IOException {
+        Path dataset = tempDir.resolve("people.csv");
+        List<Person> people = TestData.people(200, SEED);
+        csvWriter.writeToFile(people.subList(0, 5), dataset.toString(), ExportOptions.builder().indexInterval(2).build());
+        try (CheckpointFile checkpoints = CheckpointFile.open(CheckpointFile.pathFor(dataset))) {
+            checkpoints.write(5, Files.size(dataset));
+        }
+        for (int id = 0; id < 2; id++) {
+            csvWriter.writeToFile(people, dataset.toString(), shardOptions(id, 2));
+        }
+
+        ShardManifest.merge(dataset, 2, true);
+
+        assertFalse(Files.exists(CheckpointFile.pathFor(dataset)));
+        assertFalse(Files.exists(CsvIndex.pathFor(dataset)));
+
+        csvWriter.writeToFile(people.subList(0, 3), dataset.toString(),
+                ExportOptions.builder().mode(WriteMode.APPEND).build());
+        assertEquals(204, Files.readAllLines(dataset).size());
+    }
+
+    /**
+     * Проверяет, что объединение отклоняется, пока не завершены все части.
+     */
+    @Test
+    void testMergeRejectsIncompleteShards() throws IOException {
+        Path dataset = tempDir.resolve("people.csv");
+        List<Person> people = TestData.people(100, SEED);
+        csvWriter.writeToFile(people, dataset.toString(), shardOptions(0, 3));
+        csvWriter.writeToFile(people, dataset.toString(), shardOptions(2, 3));
+
+        assertThrows(IllegalStateException.class, () -> ShardManifest.merge(dataset, 3, true));
+
+        // Файл части изменился после отметки о завершении: размер не совпадает с отметкой
+        csvWriter.writeToFile(people, dataset.toString(), shardOptions(1, 3));
+        Files.writeString(ShardManifest.partPath(dataset, 1), "truncated");
+        assertThrows(IllegalStateException.class, () -> ShardManifest.merge(dataset, 3, true));
+    }
+
+    /**
+     * Проверяет потоковую запись части.
+     */
+    @Test
+    void testSubscriberWritesShard() throws Exception {
+        Path dataset = tempDir.resolve("streamed.csv");
+        List<Person> people = TestData.people(300, SEED);
+        ShardSpec shard = new ShardSpec(1, 2, KEY_COLUMN);
+
+        CsvSubscriber<Person> subscriber = csvWriter.subscriber(Person.class, dataset.toString(),
+                ExportOptions.builder().shard(shard).build());
+        try (SubmissionPublisher<Person> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(subscriber);
+            people.forEach(publisher::submit);
+        }
+
+        long expected = people.stream().filter(person -> shard.owns(person.getYearOfBirth())).count();
+        assertEquals(expected, subscriber.result().get(10, TimeUnit.SECONDS));
+        assertTrue(Files.exists(ShardManifest.completionPath(ShardManifest.partPath(dataset, 1))));
+    }
+
+    /**
+     * Проверяет некорректные параметры разделенной выгрузки.
+     */
+    @Test
+    void testInvalidShardOptionsAreRejected() {
+        List<Person> people = TestData.people(10, SEED);
+        String fileName = tempDir.resolve("invalid.csv").toString();
+        ExportOptions unknownKey = ExportOptions.builder().shard(new ShardSpec(0, 2, "Unknown")).build();
+        ExportOptions append = ExportOptions.builder().shard(new ShardSpec(0, 2, KEY_COLUMN))
+                .mode(WriteMode.APPEND)
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> new ShardSpec(2, 2, KEY_COLUMN));
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(people, fileName, unknownKey));
+        assertThrows(IllegalArgumentException.class, () -> csvWriter.writeToFile(people, fileName, append));
+    }
+
+    private ExportOptions shardOptions(int shardId, int shardCount) {
+        return ExportOptions.builder().shard(new ShardSpec(shardId, shardCount, KEY_COLUMN)).build();
+    }
+
+    private Process startWorker(Path dataset, int shardId, int shardCount, int rows) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ShardWorker.class.getName(),
+                dataset.toString(), Integer.toString(shardId), Integer.toString(shardCount),
+                Integer.toString(rows), Long.toString(SEED))
+                .redirectErrorStream(true)
+                .redirectOutput(tempDir.resolve("worker-" + shardId + ".log").toFile())
+                .start();
+    }
+
+    private static List<String> sortedData(List<String> lines) {
+        return lines.subList(1, lines.size()).stream().sorted().toList();
+    }
+}
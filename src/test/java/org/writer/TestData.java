@@ -0,0 +1,79 @@
+package org.writer;
+
+import org.writer.model.Months;
+import org.writer.model.Person;
+import org.writer.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Быстрый детерминированный генератор тестовых данных.
+ * В отличие от Faker не тратит время на локали и шаблоны, а при одном и том же seed
+ * всегда выдает одни и те же объекты, поэтому замеры зависят только от кода записи.
+ */
+final class TestData {
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Boris", "Clara", "Denis", "Elena", "Fedor", "Galina", "Igor",
+            "Julia", "Kirill", "Larisa", "Maxim", "Nina", "Oleg", "Polina", "Roman"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Ivanov", "Petrova", "Smirnov", "Kuznetsova", "Popov", "Vasilieva", "Sokolov", "Mikhailova",
+            "Novikov", "Fedorova", "Morozov", "Volkova", "Alekseev", "Lebedeva", "Semenov", "O'Brien, Jr."
+    };
+
+    private TestData() {
+    }
+
+    /**
+     * Создает людей со случайными, но воспроизводимыми именами и датами рождения.
+     * Часть фамилий содержит запятую и кавычку, чтобы в замер попадало экранирование.
+     *
+     * @param count количество людей
+     * @param seed начальное значение генератора
+     * @return список людей
+     */
+    static List<Person> people(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Months[] months = Months.values();
+        List<Person> people = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            people.add(Person.builder()
+                    .firstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)])
+                    .lastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                    .dayOfBirth(random.nextInt(1, 29))
+                    .monthOfBirth(months[random.nextInt(months.length)])
+                    .yearOfBirth(random.nextInt(1950, 2010))
+                    .build());
+        }
+        return people;
+    }
+
+    /**
+     * Создает студентов с воспроизводимыми именами и от одной до пяти оценок.
+     *
+     * @param count количество студентов
+     * @param seed начальное значение генератора
+     * @return список студентов
+     */
+    static List<Student> students(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int scoreCount = random.nextInt(1, 6);
+            List<String> scores = new ArrayList<>(scoreCount);
+            for (int j = 0; j < scoreCount; j++) {
+                scores.add(Integer.toString(random.nextInt(50, 101)));
+            }
+            students.add(Student.builder()
+                    .name(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                            + LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                    .score(scores)
+                    .build());
+        }
+        return students;
+    }
+}